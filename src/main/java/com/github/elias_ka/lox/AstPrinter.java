@@ -11,6 +11,11 @@ public class AstPrinter implements Expr.Visitor<String>, Stmt.Visitor<String> {
         return stmt.accept(this);
     }
 
+    @Override
+    public String visitArrayExpr(Expr.Array expr) {
+        return parenthesize("array", expr.elements);
+    }
+
     @Override
     public String visitAssignExpr(Expr.Assign expr) {
         return parenthesize("=", expr.name.lexeme(), expr.value);
@@ -21,6 +26,17 @@ public class AstPrinter implements Expr.Visitor<String>, Stmt.Visitor<String> {
         return parenthesize(expr.operator.lexeme(), expr.left, expr.right);
     }
 
+    @Override
+    public String visitCompareExpr(Expr.Compare expr) {
+        return parenthesize(expr.operator.lexeme(), expr.left, expr.right);
+    }
+
+    @Override
+    public String visitUpdateExpr(Expr.Update expr) {
+        return parenthesize("=", expr.variable.name.lexeme(),
+                parenthesize(expr.operator.lexeme(), expr.variable, expr.value));
+    }
+
     @Override
     public String visitCallExpr(Expr.Call expr) {
         return parenthesize("call", expr.callee, expr.arguments);
@@ -36,6 +52,16 @@ public class AstPrinter implements Expr.Visitor<String>, Stmt.Visitor<String> {
         return parenthesize("group", expr.expression);
     }
 
+    @Override
+    public String visitIndexExpr(Expr.Index expr) {
+        return parenthesize("[]", expr.object, expr.index);
+    }
+
+    @Override
+    public String visitIndexSetExpr(Expr.IndexSet expr) {
+        return parenthesize("[]=", expr.object, expr.index, expr.value);
+    }
+
     @Override
     public String visitLiteralExpr(Expr.Literal expr) {
         if (expr.value == null) return "nil";
@@ -170,6 +196,19 @@ public class AstPrinter implements Expr.Visitor<String>, Stmt.Visitor<String> {
         return parenthesize("print", stmt.expression);
     }
 
+    @Override
+    public String visitForEachStmt(Stmt.ForEach stmt) {
+        return parenthesize("for-each", stmt.name, stmt.iterable, stmt.body);
+    }
+
+    @Override
+    public String visitYieldStmt(Stmt.Yield stmt) {
+        if (stmt.value == null) {
+            return "(yield)";
+        }
+        return parenthesize("yield", stmt.value);
+    }
+
     @Override
     public String visitReturnStmt(Stmt.Return stmt) {
         if (stmt.value == null) {
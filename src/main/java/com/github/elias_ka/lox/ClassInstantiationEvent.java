@@ -0,0 +1,36 @@
+package com.github.elias_ka.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.List;
+
+@Name("com.github.elias_ka.lox.ClassInstantiation")
+@Label("Lox Class Instantiation")
+@Category("Lox")
+class ClassInstantiationEvent extends jdk.jfr.Event {
+    @Label("Class")
+    String className;
+
+    @Label("Line")
+    @Description("Line of the call that created the instance")
+    int line;
+
+    static Object record(Interpreter interpreter, LoxClass klass, Token paren, List<Object> arguments) {
+        final ClassInstantiationEvent event = new ClassInstantiationEvent();
+        if (!event.isEnabled()) {
+            return klass.call(interpreter, arguments);
+        }
+        event.begin();
+        final Object instance = klass.call(interpreter, arguments);
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = klass.getName();
+            event.line = paren.line();
+            event.commit();
+        }
+        return instance;
+    }
+}
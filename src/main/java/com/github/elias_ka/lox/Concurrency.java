@@ -0,0 +1,70 @@
+package com.github.elias_ka.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Natives for running Lox functions concurrently:
+//
+//   var task = spawn(fn);     Runs fn() on a new virtual thread.
+//   await(task);              Waits for the task and returns what fn returned.
+//   var mutex = Mutex();      lock(), tryLock() and unlock().
+//   var n = AtomicCounter(0); get(), increment(), decrement(), add(n) and compareAndSet(expected, new).
+//   var ch = Channel();       Unbounded, or Channel(capacity) for one whose send() blocks while it is full.
+//                             send(value), receive(), close() and isClosed().
+//   select(ch1, ch2, ...);    Receives from whichever channel has a value first, returning an object with
+//                             'channel' and 'value' properties, or nil once all the channels are closed.
+//
+// Natives that wait (await, lock, send on a full channel, receive and select) give up the interpreter's Scheduler
+// permit while they are blocked, and stop waiting when the execution's time limit runs out.
+//
+// An execution ends once all of its tasks have. Tasks still running when the script fails are cancelled, and errors of
+// tasks that were never awaited are reported when the execution ends.
+final class Concurrency {
+    private Concurrency() {
+    }
+
+    static void define(Environment globals) {
+        globals.define("spawn", new NativeFunction("spawn", 1, (interpreter, arguments) ->
+                LoxTask.spawn(interpreter, NativeFunction.callable(arguments.get(0), "Task"))));
+
+        globals.define("await", new NativeFunction("await", 1, (interpreter, arguments) -> {
+            if (arguments.get(0) instanceof LoxTask task) {
+                return task.await(interpreter);
+            }
+            throw new NativeError("Can only await tasks.");
+        }));
+
+        globals.define("Mutex", new NativeFunction("Mutex", 0, (interpreter, arguments) -> new LoxMutex()));
+
+        globals.define("Channel", new NativeFunction("Channel", LoxCallable.VARIADIC, (interpreter, arguments) ->
+                switch (arguments.size()) {
+                    case 0 -> LoxChannel.unbounded();
+                    case 1 -> {
+                        final long capacity = NativeFunction.integer(arguments.get(0), "Capacity");
+                        if (capacity < 1 || capacity > Integer.MAX_VALUE - 1) {
+                            throw new NativeError("Capacity must be a positive integer.");
+                        }
+                        yield new LoxChannel((int) capacity);
+                    }
+                    default -> throw new NativeError("Expected 0 or 1 arguments but got %d."
+                            .formatted(arguments.size()));
+                }));
+
+        globals.define("select", new NativeFunction("select", LoxCallable.VARIADIC, (interpreter, arguments) -> {
+            if (arguments.isEmpty()) {
+                throw new NativeError("Expected at least 1 argument but got 0.");
+            }
+            final List<LoxChannel> channels = new ArrayList<>();
+            for (final Object argument : arguments) {
+                if (!(argument instanceof LoxChannel channel)) {
+                    throw new NativeError("Can only select on channels.");
+                }
+                channels.add(channel);
+            }
+            return interpreter.blocking(deadline -> LoxChannel.select(channels, deadline));
+        }));
+
+        globals.define("AtomicCounter", new NativeFunction("AtomicCounter", 1, (interpreter, arguments) ->
+                new LoxAtomicCounter(NativeFunction.integer(arguments.get(0), "Initial value"))));
+    }
+}
@@ -1,30 +1,97 @@
 package com.github.elias_ka.lox;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Environment {
+    // ConcurrentHashMap can't hold null, so nil is stored as this instead.
+    private static final Object NIL = new Object();
 
     private final Environment enclosing;
-    private final Map<String, Object> values = new HashMap<>();
+    // A HashMap while only one thread can reach the environment. Once it is shared with a task it is swapped for a
+    // ConcurrentHashMap, and anything stored in it from then on is shared as well.
+    private Map<Symbol, Object> values = new HashMap<>();
+    boolean shared;
 
     public Environment() {
-        enclosing = null;
+        this(null);
     }
 
     public Environment(Environment enclosing) {
         this.enclosing = enclosing;
+        if (Metrics.ENABLED) Metrics.environmentsAllocated.increment();
+    }
+
+    static Object wrap(Object value) {
+        return value == null ? NIL : value;
+    }
+
+    static Object unwrap(Object value) {
+        return value == NIL ? null : value;
+    }
+
+    // Makes the environments and instances reachable from the value, through closures, classes, fields, the elements
+    // of arrays and maps and the frames of suspended generators, safe to use from several threads. Called before a
+    // value can reach another thread: when a task is spawned, when it is sent on a channel, and when it is stored
+    // somewhere already shared. Arrays and maps themselves aren't synchronized, so tasks that change one concurrently
+    // guard it with a Mutex.
+    static void share(Object value) {
+        if (!(value instanceof LoxFunction || value instanceof LoxClass || value instanceof LoxInstance
+                || value instanceof LoxArray || value instanceof LoxMap || value instanceof LoxGenerator)) {
+            return;
+        }
+
+        final Deque<Object> pending = new ArrayDeque<>();
+        pending.push(value);
+        while (!pending.isEmpty()) {
+            switch (pending.pop()) {
+                case Environment environment -> environment.shareInto(pending);
+                case LoxFunction function -> pending.push(function.getClosure());
+                case LoxClass klass -> klass.shareInto(pending);
+                case LoxInstance instance -> instance.shareInto(pending);
+                case LoxArray array -> array.shareInto(pending);
+                case LoxMap map -> map.shareInto(pending);
+                case LoxGenerator generator -> generator.shareInto(pending);
+                default -> {
+                }
+            }
+        }
+    }
+
+    void shareInto(Deque<Object> pending) {
+        if (shared) return;
+        values = new ConcurrentHashMap<>(values);
+        shared = true;
+        pending.addAll(values.values());
+        if (enclosing != null) pending.push(enclosing);
     }
 
     public Environment getEnclosing() {
         return enclosing;
     }
 
+    Map<Symbol, Object> snapshot() {
+        return new HashMap<>(values);
+    }
+
+    void restore(Map<Symbol, Object> snapshot) {
+        values.clear();
+        values.putAll(snapshot);
+    }
+
     public void define(String name, Object value) {
-        values.put(name, value);
+        define(Symbol.of(name), value);
+    }
+
+    public void define(Symbol name, Object value) {
+        if (shared) share(value);
+        values.put(name, wrap(value));
     }
 
-    private Environment ancestor(int distance) {
+    Environment ancestor(int distance) {
         Environment environment = this;
         for (var i = 0; i < distance; i++) {
             assert environment != null;
@@ -34,17 +101,20 @@ public class Environment {
         return environment;
     }
 
-    public Object getAt(int distance, String name) {
-        return ancestor(distance).values.get(name);
+    public Object getAt(int distance, Symbol name) {
+        return unwrap(ancestor(distance).values.get(name));
     }
 
     public void assignAt(int distance, Token name, Object value) {
-        ancestor(distance).values.put(name.lexeme(), value);
+        final Environment environment = ancestor(distance);
+        if (environment.shared) share(value);
+        environment.values.put(name.symbol(), wrap(value));
     }
 
     public Object get(Token name) {
-        if (values.containsKey(name.lexeme())) {
-            return values.get(name.lexeme());
+        final Object value = values.get(name.symbol());
+        if (value != null) {
+            return unwrap(value);
         }
 
         if (enclosing != null) {
@@ -55,8 +125,8 @@ public class Environment {
     }
 
     public void assign(Token name, Object value) {
-        if (values.containsKey(name.lexeme())) {
-            values.put(name.lexeme(), value);
+        if (shared) share(value);
+        if (values.replace(name.symbol(), wrap(value)) != null) {
             return;
         }
 
@@ -0,0 +1,48 @@
+package com.github.elias_ka.lox;
+
+import java.io.PrintStream;
+
+public class ErrorReporter {
+    private final PrintStream err;
+    private boolean hadError = false;
+    private boolean hadRuntimeError = false;
+
+    public ErrorReporter(PrintStream err) {
+        this.err = err;
+    }
+
+    public boolean hadError() {
+        return hadError;
+    }
+
+    public boolean hadRuntimeError() {
+        return hadRuntimeError;
+    }
+
+    public void reset() {
+        hadError = false;
+        hadRuntimeError = false;
+    }
+
+    void error(int line, String message) {
+        report(line, "", message);
+    }
+
+    private void report(int line, String where, String message) {
+        err.printf("[line %d] Error %s: %s%n", line, where, message);
+        hadError = true;
+    }
+
+    void error(Token token, String message) {
+        if (token.type() == TokenType.EOF) {
+            report(token.line(), "at end", message);
+        } else {
+            report(token.line(), "at '" + token.lexeme() + "'", message);
+        }
+    }
+
+    void runtimeError(RuntimeError error) {
+        err.printf("[line %d] Error: %s %n", error.getToken().line(), error.getMessage());
+        hadRuntimeError = true;
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.elias_ka.lox;
+
+// Switch for the JFR events, turned on with -Djlox.jfr=true. Like Metrics.ENABLED it's a static final: with events
+// off the guarded code folds away and neither the event classes nor JFR itself are ever loaded, which would otherwise
+// add a good part of a second to startup.
+final class Events {
+    static final boolean ENABLED = Boolean.getBoolean("jlox.jfr");
+
+    private Events() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.elias_ka.lox;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// The steps, time and memory left for one execution, shared by its interpreter and those of the tasks it spawns.
+// Interpreters take steps and bytes in chunks so the shared counters are only touched once per chunk, which is also
+// how often the deadline is checked.
+final class ExecutionBudget {
+    private static final int CHUNK = 1024;
+    private static final long BYTES_CHUNK = 64 * 1024;
+
+    private final ExecutionLimits limits;
+    private final AtomicLong steps;
+    private final AtomicLong bytes;
+    private final long deadline;
+    private volatile boolean cancelled;
+    private volatile boolean exhausted;
+
+    ExecutionBudget(ExecutionLimits limits) {
+        this.limits = limits;
+        this.steps = new AtomicLong(limits.maxSteps());
+        this.bytes = new AtomicLong(limits.maxBytes());
+        this.deadline = limits.timeout() != null ? System.nanoTime() + limits.timeout().toNanos() : 0;
+    }
+
+    // Returns the number of further steps the caller may take after the current one.
+    int take(Token token) {
+        if (cancelled) {
+            throw new RuntimeError(token, "Task was cancelled.");
+        }
+        check(token);
+
+        final long left = steps.getAndAdd(-CHUNK);
+        if (left <= 0) {
+            throw new ExecutionLimitError(token, "Execution exceeded its limit of %d steps."
+                    .formatted(limits.maxSteps()));
+        }
+        return (int) Math.min(CHUNK, left) - 1;
+    }
+
+    // Throws if the execution is out of time, or out of memory as found by an earlier allocate().
+    void check(Token token) {
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new ExecutionLimitError(token, "Execution exceeded its time limit of %d ms."
+                    .formatted(limits.timeout().toMillis()));
+        }
+        if (exhausted) {
+            throw memoryExceeded(token);
+        }
+    }
+
+    // The System.nanoTime() at which the execution runs out of time, or 0 if it has no timeout.
+    long deadline() {
+        return deadline;
+    }
+
+    // For natives that wait: the nanoseconds left until the deadline, or Long.MAX_VALUE without one. Throws once it
+    // has passed, which the interpreter reports as the execution exceeding its time limit.
+    static long nanosLeft(long deadline) {
+        if (deadline == 0) {
+            return Long.MAX_VALUE;
+        }
+        final long left = deadline - System.nanoTime();
+        if (left <= 0) {
+            throw new NativeError("Ran out of time while waiting.");
+        }
+        return left;
+    }
+
+    // Makes every interpreter drawing from this budget fail when it next takes steps.
+    void cancel() {
+        cancelled = true;
+    }
+
+    // Called when an allocation went past what the caller had taken. Returns the allowance left after it. The token
+    // is null for allocations made by natives, which fail with a NativeError that check() turns into the right error
+    // at the call site.
+    long allocate(Token token, long deficit) {
+        final long grant = Math.max(BYTES_CHUNK, deficit);
+        final long left = bytes.getAndAdd(-grant);
+        if (left < deficit) {
+            exhausted = true;
+            if (token == null) {
+                throw new NativeError("Ran out of memory.");
+            }
+            throw memoryExceeded(token);
+        }
+        return Math.min(grant, left) - deficit;
+    }
+
+    private ExecutionLimitError memoryExceeded(Token token) {
+        return new ExecutionLimitError(token, "Execution exceeded its memory limit of %d bytes."
+                .formatted(limits.maxBytes()));
+    }
+}
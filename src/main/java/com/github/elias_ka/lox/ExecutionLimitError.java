@@ -0,0 +1,9 @@
+package com.github.elias_ka.lox;
+
+// Raised when an execution runs out of steps, time or memory. It is reported like any other runtime error, and hosts
+// can tell it apart by its type.
+public class ExecutionLimitError extends RuntimeError {
+    public ExecutionLimitError(Token token, String message) {
+        super(token, message);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.elias_ka.lox;
+
+import java.time.Duration;
+
+// How much work a single execution may do before it is stopped with an ExecutionLimitError. A step is one loop
+// iteration or one call; the timeout is wall-clock time since the execution started. maxBytes caps the approximate
+// number of bytes the script allocates in total, counting instances and their fields, variables and call frames,
+// closures, strings, including those read from files or returned by Java methods, arrays and maps as they grow and
+// values queued on channels, so that a runaway script is stopped long before it can exhaust the heap.
+// Tasks spawned by the execution draw from the same budget. Natives that wait, such as receiving from a channel, give
+// up once the timeout has passed.
+public record ExecutionLimits(long maxSteps, Duration timeout, long maxBytes) {
+    public static final ExecutionLimits NONE = new ExecutionLimits(Long.MAX_VALUE, null, Long.MAX_VALUE);
+
+    public ExecutionLimits {
+        if (maxSteps < 1) {
+            throw new IllegalArgumentException("maxSteps must be positive.");
+        }
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive.");
+        }
+    }
+
+    public static ExecutionLimits steps(long maxSteps) {
+        return new ExecutionLimits(maxSteps, null, Long.MAX_VALUE);
+    }
+
+    public static ExecutionLimits timeout(Duration timeout) {
+        return new ExecutionLimits(Long.MAX_VALUE, timeout, Long.MAX_VALUE);
+    }
+
+    public static ExecutionLimits memory(long maxBytes) {
+        return new ExecutionLimits(Long.MAX_VALUE, null, maxBytes);
+    }
+}
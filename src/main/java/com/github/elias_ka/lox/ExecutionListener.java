@@ -0,0 +1,21 @@
+package com.github.elias_ka.lox;
+
+// Receives events from an engine created with a listener, for tracing, debugging or coverage. Engines without one
+// run a plain Interpreter that has no trace of these hooks. Events from tasks come on the tasks' own threads.
+public interface ExecutionListener {
+    // Before each statement runs, including every pass through a loop body.
+    default void onStatement(int line) {
+    }
+
+    // Calls to functions, classes and natives, with the line of the call.
+    default void onCall(String function, int line) {
+    }
+
+    // When the call returns, normally or not.
+    default void onReturn(String function, int line) {
+    }
+
+    // An error that stopped the script, just before it's reported.
+    default void onError(RuntimeError error) {
+    }
+}
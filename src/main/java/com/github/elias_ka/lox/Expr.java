@@ -4,16 +4,24 @@ import java.util.List;
 
 public abstract class Expr {
     interface Visitor<R> {
+        R visitArrayExpr(Array expr);
+
         R visitAssignExpr(Assign expr);
 
         R visitBinaryExpr(Binary expr);
 
         R visitCallExpr(Call expr);
 
+        R visitCompareExpr(Compare expr);
+
         R visitGetExpr(Get expr);
 
         R visitGroupingExpr(Grouping expr);
 
+        R visitIndexExpr(Index expr);
+
+        R visitIndexSetExpr(IndexSet expr);
+
         R visitLiteralExpr(Literal expr);
 
         R visitLogicalExpr(Logical expr);
@@ -26,13 +34,32 @@ public abstract class Expr {
 
         R visitUnaryExpr(Unary expr);
 
+        R visitUpdateExpr(Update expr);
+
         R visitVariableExpr(Variable expr);
 
     }
 
+    public static class Array extends Expr {
+        public final Token bracket;
+        public final List<Expr> elements;
+
+        Array(Token bracket, List<Expr> elements) {
+            this.bracket = bracket;
+            this.elements = elements;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitArrayExpr(this);
+        }
+    }
+
     public static class Assign extends Expr {
         public final Token name;
         public final Expr value;
+        int depth = -1;
+        int slot = -1;
 
         Assign(Token name, Expr value) {
             this.name = name;
@@ -66,6 +93,7 @@ public abstract class Expr {
         public final Expr callee;
         public final Token paren;
         public final List<Expr> arguments;
+        volatile Object site = null;
 
         Call(Expr callee, Token paren, List<Expr> arguments) {
             this.callee = callee;
@@ -79,9 +107,27 @@ public abstract class Expr {
         }
     }
 
+    public static class Compare extends Expr {
+        public final Expr.Variable left;
+        public final Token operator;
+        public final Expr right;
+
+        Compare(Expr.Variable left, Token operator, Expr right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitCompareExpr(this);
+        }
+    }
+
     public static class Get extends Expr {
         public final Expr object;
         public final Token name;
+        volatile Object cache = null;
 
         Get(Expr object, Token name) {
             this.object = object;
@@ -107,6 +153,42 @@ public abstract class Expr {
         }
     }
 
+    public static class Index extends Expr {
+        public final Expr object;
+        public final Token bracket;
+        public final Expr index;
+
+        Index(Expr object, Token bracket, Expr index) {
+            this.object = object;
+            this.bracket = bracket;
+            this.index = index;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitIndexExpr(this);
+        }
+    }
+
+    public static class IndexSet extends Expr {
+        public final Expr object;
+        public final Token bracket;
+        public final Expr index;
+        public final Expr value;
+
+        IndexSet(Expr object, Token bracket, Expr index, Expr value) {
+            this.object = object;
+            this.bracket = bracket;
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitIndexSetExpr(this);
+        }
+    }
+
     public static class Literal extends Expr {
         public final Object value;
 
@@ -157,6 +239,7 @@ public abstract class Expr {
     public static class Super extends Expr {
         public final Token keyword;
         public final Token method;
+        int depth = -1;
 
         Super(Token keyword, Token method) {
             this.keyword = keyword;
@@ -171,6 +254,7 @@ public abstract class Expr {
 
     public static class This extends Expr {
         public final Token keyword;
+        int depth = -1;
 
         This(Token keyword) {
             this.keyword = keyword;
@@ -197,8 +281,27 @@ public abstract class Expr {
         }
     }
 
+    public static class Update extends Expr {
+        public final Expr.Variable variable;
+        public final Token operator;
+        public final Expr value;
+
+        Update(Expr.Variable variable, Token operator, Expr value) {
+            this.variable = variable;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitUpdateExpr(this);
+        }
+    }
+
     public static class Variable extends Expr {
         public final Token name;
+        int depth = -1;
+        int slot = -1;
 
         Variable(Token name) {
             this.name = name;
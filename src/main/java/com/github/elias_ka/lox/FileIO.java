@@ -0,0 +1,107 @@
+package com.github.elias_ka.lox;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Natives for reading and writing text files, all as UTF-8:
+//
+//   readFile(path);         Returns the whole file as a string.
+//   var in = open(path);    A reader with readLine() and read(n), both returning nil at the end of the file, and
+//                           close(). 'for (var line in in)' iterates over the remaining lines.
+//   var out = create(path); A buffered writer, truncating the file, or append(path) to add to it. write(value),
+//                           writeLine(value), flush() and close(). Nothing is guaranteed to be written before close().
+//
+// They reach the host's file system, so they are only defined for engines that enable them with
+// Lox.enableFileAccess(). Files a script leaves open are closed by the engine once it is done with them.
+final class FileIO {
+    // Readers and writers buffer this many chars so scripts going a line at a time still read and write in big blocks.
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private FileIO() {
+    }
+
+    static void define(Environment globals) {
+        globals.define("readFile", new NativeFunction("readFile", 1, (interpreter, arguments) ->
+                readFile(interpreter, path(arguments.get(0)))));
+
+        globals.define("open", new NativeFunction("open", 1, (interpreter, arguments) -> {
+            final Path path = path(arguments.get(0));
+            try {
+                return new LoxFileReader(path, new BufferedReader(
+                        new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), BUFFER_SIZE),
+                        interpreter.getOpenFiles());
+            } catch (IOException e) {
+                throw error("open", path, e);
+            }
+        }));
+
+        globals.define("create", new NativeFunction("create", 1, (interpreter, arguments) ->
+                writer(interpreter, path(arguments.get(0)), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)));
+
+        globals.define("append", new NativeFunction("append", 1, (interpreter, arguments) ->
+                writer(interpreter, path(arguments.get(0)), StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    // The file's size is charged before it is read, so a file too big for the execution's memory limit isn't read at
+    // all. Files.readString() decodes straight from the bytes it read, without another copy.
+    private static String readFile(Interpreter interpreter, Path path) {
+        try {
+            final long size = Files.size(path);
+            if (size > Integer.MAX_VALUE) {
+                throw new NativeError("File '%s' is too large to read at once.".formatted(path));
+            }
+            interpreter.charge(Interpreter.STRING_BYTES + size);
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw error("read", path, e);
+        }
+    }
+
+    private static LoxFileWriter writer(Interpreter interpreter, Path path, StandardOpenOption... options) {
+        try {
+            return new LoxFileWriter(path, new BufferedWriter(
+                    new OutputStreamWriter(Files.newOutputStream(path, options), StandardCharsets.UTF_8), BUFFER_SIZE),
+                    interpreter.getOpenFiles());
+        } catch (IOException e) {
+            throw error("open", path, e);
+        }
+    }
+
+    private static Path path(Object value) {
+        if (!Rope.isString(value)) {
+            throw new NativeError("Path must be a string.");
+        }
+        try {
+            return Path.of(value.toString());
+        } catch (InvalidPathException e) {
+            throw new NativeError("Invalid path '%s'.".formatted(value));
+        }
+    }
+
+    static NativeError error(String action, Path path, IOException e) {
+        return new NativeError("Could not %s '%s': %s".formatted(action, path, describe(e)));
+    }
+
+    private static String describe(IOException e) {
+        return switch (e) {
+            case NoSuchFileException ignored -> "no such file.";
+            case AccessDeniedException ignored -> "access denied.";
+            case FileSystemException fs when fs.getReason() != null -> fs.getReason() + ".";
+            case CharacterCodingException ignored -> "not valid UTF-8.";
+            default -> e.getMessage() != null ? e.getMessage() + "." : e.getClass().getSimpleName() + ".";
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.elias_ka.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.Threshold;
+
+import java.util.function.Supplier;
+
+@Name("com.github.elias_ka.lox.FunctionCall")
+@Label("Lox Function Call")
+@Category("Lox")
+@Description("A call to a Lox function that took longer than the threshold")
+@Threshold("1 ms")
+class FunctionCallEvent extends jdk.jfr.Event {
+    @Label("Function")
+    String function;
+
+    @Label("Line")
+    @Description("Line the function is declared on")
+    int line;
+
+    // Whether any running recording has this event enabled. Calls are hot enough that we don't even want to create
+    // the event object when nobody is listening. Only read when Events.ENABLED, as initializing this class starts JFR.
+    static volatile boolean enabled;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                update();
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                update();
+            }
+        });
+        update();
+    }
+
+    static Object record(Stmt.Function function, Supplier<Object> call) {
+        final FunctionCallEvent event = new FunctionCallEvent();
+        event.begin();
+        try {
+            return call.get();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.function = function.name.lexeme();
+                event.line = function.name.line();
+                event.commit();
+            }
+        }
+    }
+
+    private static void update() {
+        enabled = EventType.getEventType(FunctionCallEvent.class).isEnabled();
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.elias_ka.lox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The outermost environment. Each global lives in a cell that, once defined, is never replaced or removed. The
+// resolver gives every global variable or assignment expression its name's slot, and the cells are also kept in an
+// array indexed by slot, filled in on first lookup, so running the expression is usually an array read instead of a
+// map lookup. Slots are the same for every GlobalEnvironment, which lets one program be executed by many interpreters
+// at once without any of them writing to its AST.
+//
+// Binding stays late: a function may refer to a global declared after it, and reading or assigning it before then
+// fails as usual without leaving a cell behind.
+public class GlobalEnvironment extends Environment {
+    static final class Cell {
+        // Marks a cell for a name that isn't defined.
+        private static final Object UNDEFINED = new Object();
+
+        private final GlobalEnvironment owner;
+        private final Symbol name;
+        // Volatile because globals are shared by tasks running on other threads.
+        private volatile Object value = UNDEFINED;
+
+        private Cell(GlobalEnvironment owner, Symbol name) {
+            this.owner = owner;
+            this.name = name;
+        }
+
+        Object get(Token token) {
+            final Object current = value;
+            if (current == UNDEFINED) {
+                throw undefined(token);
+            }
+            return current;
+        }
+
+        void set(Token token, Object newValue) {
+            if (value == UNDEFINED) {
+                throw undefined(token);
+            }
+            if (owner.shared) share(newValue);
+            value = newValue;
+        }
+    }
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Cell[].class);
+
+    private final Map<Symbol, Cell> cells = new ConcurrentHashMap<>();
+    // Cells are stored into it with release semantics, as it is read without a lock, and it is replaced by a larger
+    // copy when a slot doesn't fit.
+    private volatile Cell[] slots = new Cell[16];
+
+    // Returns the cell for the global in the given slot, which must be its name's, or fails if it isn't defined.
+    Cell cell(int slot, Token name) {
+        final Cell[] current = slots;
+        if (slot < current.length) {
+            final Cell cell = (Cell) SLOTS.getAcquire(current, slot);
+            if (cell != null) return cell;
+        }
+        return bind(slot, name);
+    }
+
+    private synchronized Cell bind(int slot, Token name) {
+        final Cell cell = cell(name);
+        Cell[] current = slots;
+        if (slot >= current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, slot + 1));
+            current[slot] = cell;
+            slots = current;
+        } else {
+            SLOTS.setRelease(current, slot, cell);
+        }
+        return cell;
+    }
+
+    private Cell cell(Token name) {
+        final Cell cell = cells.get(name.symbol());
+        if (cell == null) {
+            throw undefined(name);
+        }
+        return cell;
+    }
+
+    @Override
+    public void define(Symbol name, Object value) {
+        if (shared) share(value);
+        cells.computeIfAbsent(name, symbol -> new Cell(this, symbol)).value = value;
+    }
+
+    // Globals are always safe to use from several threads, so sharing only marks them, to share what they hold.
+    @Override
+    void shareInto(Deque<Object> pending) {
+        if (shared) return;
+        shared = true;
+        cells.forEach((name, cell) -> {
+            final Object value = cell.value;
+            if (value != null) pending.push(value);
+        });
+    }
+
+    @Override
+    public Object getAt(int distance, Symbol name) {
+        final Cell cell = cells.get(name);
+        return cell == null || cell.value == Cell.UNDEFINED ? null : cell.value;
+    }
+
+    @Override
+    public void assignAt(int distance, Token name, Object value) {
+        define(name.symbol(), value);
+    }
+
+    @Override
+    public Object get(Token name) {
+        return cell(name).get(name);
+    }
+
+    @Override
+    public void assign(Token name, Object value) {
+        cell(name).set(name, value);
+    }
+
+    @Override
+    Map<Symbol, Object> snapshot() {
+        final Map<Symbol, Object> snapshot = new HashMap<>();
+        cells.forEach((name, cell) -> {
+            final Object value = cell.value;
+            if (value != Cell.UNDEFINED) snapshot.put(name, wrap(value));
+        });
+        return snapshot;
+    }
+
+    // Cells are kept, and only their values reset, so the slots stay valid. No task outlives the execution that spawned
+    // it, so the restored globals are no longer shared.
+    @Override
+    void restore(Map<Symbol, Object> snapshot) {
+        shared = false;
+        cells.forEach((name, cell) -> {
+            final Object value = snapshot.get(name);
+            cell.value = value == null ? Cell.UNDEFINED : unwrap(value);
+        });
+    }
+
+    private static RuntimeError undefined(Token name) {
+        return new RuntimeError(name, "Undefined variable '%s'.".formatted(name.lexeme()));
+    }
+}
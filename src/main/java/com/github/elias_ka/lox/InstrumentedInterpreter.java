@@ -0,0 +1,68 @@
+package com.github.elias_ka.lox;
+
+import java.util.List;
+
+// An interpreter that reports to an ExecutionListener. The hooks are overrides of methods the plain Interpreter runs
+// anyway, so an engine without a listener checks nothing per statement or call. As long as this class isn't loaded,
+// the JIT knows those methods have no overrides and compiles them as direct calls.
+final class InstrumentedInterpreter extends Interpreter {
+    private final ExecutionListener listener;
+
+    // Declared to return an Interpreter so that verifying callers doesn't load this class.
+    static Interpreter create(ErrorReporter reporter, OutputSink out, ExecutionListener listener) {
+        return new InstrumentedInterpreter(reporter, out, listener);
+    }
+
+    private InstrumentedInterpreter(ErrorReporter reporter, OutputSink out, ExecutionListener listener) {
+        super(reporter, out);
+        this.listener = listener;
+    }
+
+    private InstrumentedInterpreter(ErrorReporter reporter, OutputSink out, GlobalEnvironment globals,
+                                    ExecutionListener listener) {
+        super(reporter, out, globals);
+        this.listener = listener;
+    }
+
+    @Override
+    Interpreter newFork(ErrorReporter reporter, OutputSink out, GlobalEnvironment globals) {
+        return new InstrumentedInterpreter(reporter, out, globals, listener);
+    }
+
+    @Override
+    void execute(Stmt stmt) {
+        listener.onStatement(stmt.line);
+        super.execute(stmt);
+    }
+
+    @Override
+    void resumed(Stmt stmt) {
+        listener.onStatement(stmt.line);
+    }
+
+    @Override
+    Object invoke(LoxCallable function, Expr.Call expr, List<Object> arguments) {
+        final String name = name(function);
+        listener.onCall(name, expr.paren.line());
+        try {
+            return super.invoke(function, expr, arguments);
+        } finally {
+            listener.onReturn(name, expr.paren.line());
+        }
+    }
+
+    @Override
+    void reportRuntimeError(RuntimeError error) {
+        listener.onError(error);
+        super.reportRuntimeError(error);
+    }
+
+    private static String name(LoxCallable function) {
+        return switch (function) {
+            case LoxFunction loxFunction -> loxFunction.getName();
+            case LoxClass loxClass -> loxClass.getName();
+            case NativeFunction nativeFunction -> nativeFunction.getName();
+            default -> function.toString();
+        };
+    }
+}
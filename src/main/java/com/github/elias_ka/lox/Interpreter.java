@@ -1,38 +1,242 @@
 package com.github.elias_ka.lox;
 
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
 
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
-    private final Environment globals = new Environment();
-    private final Map<Expr, Integer> locals = new HashMap<>();
-    private Environment environment = globals;
-
-    public Interpreter() {
-        globals.define("clock", new LoxCallable() {
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return System.currentTimeMillis() / 1000.0;
-            }
+    // What resume() returns when the generator has run to completion, as nil may be yielded.
+    static final Object FINISHED = new Object();
+
+    // What a for-each loop iterates over.
+    interface Items {
+        boolean hasNext();
+
+        Object next();
+    }
+
+    // Rough heap footprints used to charge allocations against an execution's memory limit.
+    static final long INSTANCE_BYTES = 80;
+    private static final long ENVIRONMENT_BYTES = 96;
+    static final long ENTRY_BYTES = 40;
+    private static final long FUNCTION_BYTES = 32;
+    static final long STRING_BYTES = 40;
+
+    private final ErrorReporter reporter;
+    private final OutputSink out;
+    private final GlobalEnvironment globals;
+    private Environment environment;
+    private Map<Symbol, Object> baseline;
+    private Profiler profiler;
+    // Null when the execution has no limits. steps and bytes count down what is left of the chunks taken from the
+    // budget.
+    private ExecutionBudget budget;
+    private int steps;
+    private long bytes;
+    // Set when running under a Scheduler.
+    private Timeslice timeslice;
+    // Created by the first spawn of an execution and shared with every interpreter forked for it.
+    private TaskGroup tasks;
+    // Null unless file access is enabled. Shared with forked interpreters.
+    private OpenFiles files;
+
+    public Interpreter(ErrorReporter reporter, OutputSink out) {
+        this(reporter, out, new GlobalEnvironment());
+        globals.define("clock", new NativeFunction("clock", 0, (interpreter, arguments) ->
+                System.currentTimeMillis() / 1000.0));
+        globals.define("Map", new NativeFunction("Map", 0, (interpreter, arguments) -> new LoxMap()));
+        Concurrency.define(globals);
+    }
+
+    Interpreter(ErrorReporter reporter, OutputSink out, GlobalEnvironment globals) {
+        this.reporter = reporter;
+        this.out = out;
+        this.globals = globals;
+        this.environment = globals;
+    }
+
+    // An interpreter for another thread, sharing this one's globals and output.
+    Interpreter fork() {
+        out.share();
+        final Interpreter forked = newFork(reporter, out, globals);
+        if (tasks == null) tasks = new TaskGroup(budget);
+        forked.tasks = tasks;
+        forked.budget = tasks.budget();
+        forked.timeslice = timeslice != null ? timeslice.fork() : null;
+        forked.files = files;
+        return forked;
+    }
+
+    Interpreter newFork(ErrorReporter reporter, OutputSink out, GlobalEnvironment globals) {
+        return new Interpreter(reporter, out, globals);
+    }
+
+    // Numbers may be passed as any Java Number. Classes and other Java objects are made callable from scripts.
+    void defineGlobals(Map<String, Object> bindings) {
+        bindings.forEach((name, value) -> globals.define(name, JavaInterop.wrap(value)));
+    }
+
+    // Defines the natives of FileIO.
+    void enableFileAccess() {
+        if (files == null) {
+            files = new OpenFiles();
+            FileIO.define(globals);
+        }
+    }
 
-            @Override
-            public String toString() {
-                return "<native fn>";
-            }
-        });
+    OpenFiles getOpenFiles() {
+        return files;
+    }
+
+    // Called once the interpreter is done with, after its last execution.
+    void closeFiles() {
+        if (files != null) files.closeAll();
+    }
+
+    // Remembers the current globals as the state reset() goes back to.
+    void markBaseline() {
+        baseline = globals.snapshot();
+    }
+
+    void reset() {
+        globals.restore(baseline);
+        environment = globals;
+        profiler = null;
+        budget = null;
+        timeslice = null;
+    }
+
+    // Applies to everything interpreted from now on, with the timeout counting from now.
+    void limit(ExecutionLimits limits) {
+        budget = limits != ExecutionLimits.NONE ? new ExecutionBudget(limits) : null;
+        steps = 0;
+        bytes = 0;
+    }
+
+    private void step(Token token) {
+        if (--steps < 0) {
+            steps = budget.take(token);
+        }
+    }
+
+    // The caller must already hold a permit from the timeslice.
+    void schedule(Timeslice timeslice) {
+        this.timeslice = timeslice;
     }
 
-    public void interpret(List<Stmt> statements) {
+    Timeslice getTimeslice() {
+        return timeslice;
+    }
+
+    TaskGroup getTasks() {
+        return tasks;
+    }
+
+    // Runs a native operation that may block, without holding on to a scheduler permit meanwhile. The operation is
+    // given the execution's deadline, see ExecutionBudget.nanosLeft(), and must stop waiting once it has passed.
+    Object blocking(LongFunction<Object> operation) {
+        final long deadline = budget != null ? budget.deadline() : 0;
+        if (timeslice == null) {
+            return operation.apply(deadline);
+        }
+
+        timeslice.release();
         try {
-            for (final Stmt statement : statements) {
+            return operation.apply(deadline);
+        } finally {
+            timeslice.acquire();
+        }
+    }
+
+    private void allocate(Token token, long size) {
+        if ((bytes -= size) < 0) {
+            bytes = budget.allocate(token, -bytes);
+        }
+    }
+
+    // For memory allocated by natives and containers, which don't know where they were called from. Running out fails
+    // with a NativeError, reported at the call site as the execution exceeding its memory limit.
+    void charge(long size) {
+        if (budget != null && (bytes -= size) < 0) {
+            bytes = budget.allocate(null, -bytes);
+        }
+    }
+
+    // Charges a string a native is about to return, if there is one.
+    String chargeString(String string) {
+        if (string != null) charge(STRING_BYTES + string.length());
+        return string;
+    }
+
+    // A native that ran out of time or memory fails with a NativeError like any other, so the budget is checked to
+    // report it as an ExecutionLimitError.
+    private RuntimeError nativeError(Token token, NativeError error) {
+        if (budget != null) budget.check(token);
+        return new RuntimeError(token, error.getMessage());
+    }
+
+    Profiler getProfiler() {
+        return profiler;
+    }
+
+    void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public void interpret(Program program) {
+        boolean failed = false;
+        try {
+            for (final Stmt statement : program.getStatements()) {
                 execute(statement);
             }
         } catch (RuntimeError error) {
-            Lox.runtimeError(error);
+            failed = true;
+            if (Metrics.ENABLED) Metrics.runtimeErrors.increment();
+            // Whatever was printed before the error comes before its message.
+            out.flush();
+            reportRuntimeError(error);
+        } finally {
+            if (tasks != null) finishTasks(failed);
+            out.flush();
+        }
+    }
+
+    // Tasks still running when the script ends are waited for, or cancelled if the script failed.
+    private void finishTasks(boolean cancel) {
+        final TaskGroup group = tasks;
+        tasks = null;
+        final List<RuntimeError> errors = new ArrayList<>();
+        blocking(deadline -> errors.addAll(group.finish(cancel)));
+        for (final RuntimeError error : errors) {
+            if (Metrics.ENABLED) Metrics.runtimeErrors.increment();
+            out.flush();
+            reportRuntimeError(error);
         }
     }
 
+    void reportRuntimeError(RuntimeError error) {
+        if (Events.ENABLED) RuntimeErrorEvent.emit(error);
+        reporter.runtimeError(error);
+    }
+
+    @Override
+    public Object visitArrayExpr(Expr.Array expr) {
+        if (budget != null) allocate(expr.bracket, INSTANCE_BYTES + 8L * expr.elements.size());
+        final LoxArray array = new LoxArray(expr.elements.size());
+        try {
+            for (final Expr element : expr.elements) {
+                array.push(this, evaluate(element));
+            }
+        } catch (NativeError error) {
+            throw nativeError(expr.bracket, error);
+        }
+        return array;
+    }
+
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
         final Object left = evaluate(expr.left);
@@ -61,25 +265,42 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             case TokenType.EQUAL_EQUAL -> {
                 return isEqual(left, right);
             }
+            default -> {
+                return arithmetic(expr.operator, left, right);
+            }
+        }
+    }
+
+    private Object arithmetic(Token operator, Object left, Object right) {
+        switch (operator.type()) {
             case TokenType.MINUS -> {
-                checkNumberOperands(expr.operator, left, right);
+                checkNumberOperands(operator, left, right);
                 return (double) left - (double) right;
             }
             case TokenType.PLUS -> {
                 if (left instanceof Double && right instanceof Double) {
                     return (double) left + (double) right;
                 }
-                if (left instanceof String l && right instanceof String r) {
-                    return l + r;
+                if (Rope.isString(left) && Rope.isString(right)) {
+                    try {
+                        if (budget != null) {
+                            // A rope's characters are only copied when it's flattened, but charging the shorter
+                            // side of each concatenation adds up to about that, whichever way the string was built.
+                            allocate(operator, STRING_BYTES + Math.min(Rope.length(left), Rope.length(right)));
+                        }
+                        return Rope.concat(left, right);
+                    } catch (NativeError error) {
+                        throw new RuntimeError(operator, error.getMessage());
+                    }
                 }
-                throw new RuntimeError(expr.operator, "Operands must be two numbers or two strings.");
+                throw new RuntimeError(operator, "Operands must be two numbers or two strings.");
             }
             case TokenType.SLASH -> {
-                checkNumberOperands(expr.operator, left, right);
+                checkNumberOperands(operator, left, right);
                 return (double) left / (double) right;
             }
             case TokenType.STAR -> {
-                checkNumberOperands(expr.operator, left, right);
+                checkNumberOperands(operator, left, right);
                 return (double) left * (double) right;
             }
         }
@@ -88,6 +309,43 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Object visitCompareExpr(Expr.Compare expr) {
+        final Object left = lookUpVariable(expr.left);
+        final Object right = expr.right instanceof Expr.Literal literal ? literal.value : evaluate(expr.right);
+        if (!(left instanceof Double a) || !(right instanceof Double b)) {
+            throw new RuntimeError(expr.operator, "Operands must be numbers.");
+        }
+
+        return switch (expr.operator.type()) {
+            case TokenType.GREATER -> a > b;
+            case TokenType.GREATER_EQUAL -> a >= b;
+            case TokenType.LESS -> a < b;
+            case TokenType.LESS_EQUAL -> a <= b;
+            // Unreachable.
+            default -> null;
+        };
+    }
+
+    @Override
+    public Object visitUpdateExpr(Expr.Update expr) {
+        final Expr.Variable variable = expr.variable;
+        if (variable.depth < 0) {
+            final GlobalEnvironment.Cell cell = global(variable);
+            final Object value = arithmetic(expr.operator, cell.get(variable.name), evaluate(expr.value));
+            cell.set(variable.name, value);
+            return value;
+        }
+
+        // The environment is found once for both the read and the write.
+        final Environment target = environment.ancestor(variable.depth);
+        final Object left = target.getAt(0, variable.name.symbol());
+        final Object right = expr.value instanceof Expr.Literal literal ? literal.value : evaluate(expr.value);
+        final Object value = arithmetic(expr.operator, left, right);
+        target.assignAt(0, variable.name, value);
+        return value;
+    }
+
     @Override
     public Object visitCallExpr(Expr.Call expr) {
         final Object callee = evaluate(expr.callee);
@@ -97,19 +355,60 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             throw new RuntimeError(expr.paren, "Can only call functions and classes.");
         }
 
-        if (arguments.size() != function.arity()) {
+        if (function.arity() != LoxCallable.VARIADIC && arguments.size() != function.arity()) {
             final String plural = function.arity() == 1 ? "" : "s";
             final String msg = "Expected %d argument%s but got %d.".formatted(function.arity(), plural, arguments.size());
             throw new RuntimeError(expr.paren, msg);
         }
 
-        return function.call(this, arguments);
+        if (timeslice != null) timeslice.tick();
+        if (budget != null) {
+            step(expr.paren);
+            if (function instanceof LoxFunction || function instanceof LoxClass) {
+                // The call's environment, and the instance itself for a class.
+                final long size = ENVIRONMENT_BYTES + ENTRY_BYTES * arguments.size();
+                allocate(expr.paren, function instanceof LoxClass ? size + INSTANCE_BYTES : size);
+            }
+        }
+        if (Metrics.ENABLED) Metrics.countCall(function);
+        return invoke(function, expr, arguments);
+    }
+
+    // Performs a call once its arguments have been checked.
+    Object invoke(LoxCallable function, Expr.Call expr, List<Object> arguments) {
+        if (function instanceof LoxClass klass) {
+            return instantiate(klass, expr.paren, arguments);
+        }
+
+        try {
+            if (function instanceof JavaMethod method) {
+                final Object result = method.call(expr, arguments);
+                return result instanceof String string ? chargeString(string) : result;
+            }
+            return function.call(this, arguments);
+        } catch (NativeError error) {
+            throw nativeError(expr.paren, error);
+        }
+    }
+
+    private Object instantiate(LoxClass klass, Token paren, List<Object> arguments) {
+        if (Events.ENABLED) {
+            return ClassInstantiationEvent.record(this, klass, paren, arguments);
+        }
+        return klass.call(this, arguments);
     }
 
     @Override
     public Object visitGetExpr(Expr.Get expr) {
-        if (evaluate(expr.object) instanceof LoxInstance instance) {
-            return instance.get(expr.name);
+        final Object object = evaluate(expr.object);
+        if (object instanceof LoxInstance instance) {
+            final Object value = instance.get(expr.name);
+            // Methods are bound to the instance on every access.
+            if (budget != null && value instanceof LoxFunction) allocate(expr.name, ENVIRONMENT_BYTES + FUNCTION_BYTES);
+            return value;
+        }
+        if (object instanceof NativeObject nativeObject) {
+            return nativeObject.get(expr);
         }
         throw new RuntimeError(expr.name, "Only instances have properties.");
     }
@@ -119,6 +418,52 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return evaluate(expr.expression);
     }
 
+    @Override
+    public Object visitIndexExpr(Expr.Index expr) {
+        final Object object = evaluate(expr.object);
+        final Object index = evaluate(expr.index);
+
+        if (object instanceof LoxArray array) {
+            return array.get(arrayIndex(expr.bracket, array, index));
+        }
+        if (object instanceof LoxMap map) {
+            return map.get(index);
+        }
+        throw new RuntimeError(expr.bracket, "Only arrays and maps can be indexed.");
+    }
+
+    @Override
+    public Object visitIndexSetExpr(Expr.IndexSet expr) {
+        final Object object = evaluate(expr.object);
+        final Object index = evaluate(expr.index);
+        final Object value = evaluate(expr.value);
+
+        try {
+            if (object instanceof LoxArray array) {
+                array.set(this, arrayIndex(expr.bracket, array, index), value);
+                return value;
+            }
+            if (object instanceof LoxMap map) {
+                map.set(this, index, value);
+                return value;
+            }
+        } catch (NativeError error) {
+            throw nativeError(expr.bracket, error);
+        }
+        throw new RuntimeError(expr.bracket, "Only arrays and maps can be indexed.");
+    }
+
+    private int arrayIndex(Token bracket, LoxArray array, Object index) {
+        if (!(index instanceof Double number) || number != Math.floor(number)) {
+            throw new RuntimeError(bracket, "Array index must be an integer.");
+        }
+        if (number < 0 || number >= array.size()) {
+            throw new RuntimeError(bracket, "Array index %s out of bounds for length %d."
+                    .formatted(stringify(number), array.size()));
+        }
+        return (int) (double) number;
+    }
+
     @Override
     public Object visitLiteralExpr(Expr.Literal expr) {
         return expr.value;
@@ -145,6 +490,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
         if (object instanceof LoxInstance instance) {
             final Object value = evaluate(expr.value);
+            if (budget != null) allocate(expr.name, ENTRY_BYTES);
             instance.set(expr.name, value);
             return value;
         }
@@ -154,21 +500,22 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitSuperExpr(Expr.Super expr) {
-        final int distance = locals.get(expr);
-        final LoxClass superclass = (LoxClass) environment.getAt(distance, "super");
-        final LoxInstance object = (LoxInstance) environment.getAt(distance - 1, "this");
-        final LoxFunction method = superclass.findMethod(expr.method.lexeme());
+        final int distance = expr.depth;
+        final LoxClass superclass = (LoxClass) environment.getAt(distance, Symbol.SUPER);
+        final LoxInstance object = (LoxInstance) environment.getAt(distance - 1, Symbol.THIS);
+        final LoxFunction method = superclass.findMethod(expr.method.symbol());
 
         if (method == null) {
             throw new RuntimeError(expr.method, "Undefined property '%s'.".formatted(expr.method.lexeme()));
         }
 
+        if (budget != null) allocate(expr.method, ENVIRONMENT_BYTES + FUNCTION_BYTES);
         return method.bind(object);
     }
 
     @Override
     public Object visitThisExpr(Expr.This expr) {
-        return lookUpVariable(expr.keyword, expr);
+        return lookUpVariable(expr.keyword, expr.depth);
     }
 
     @Override
@@ -189,13 +536,23 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitVariableExpr(Expr.Variable expr) {
-        return lookUpVariable(expr.name, expr);
+        return lookUpVariable(expr);
     }
 
-    private Object lookUpVariable(Token name, Expr expr) {
-        final Integer distance = locals.get(expr);
-        if (distance != null) {
-            return environment.getAt(distance, name.lexeme());
+    private Object lookUpVariable(Expr.Variable expr) {
+        if (expr.depth >= 0) {
+            return environment.getAt(expr.depth, expr.name.symbol());
+        }
+        return global(expr).get(expr.name);
+    }
+
+    private GlobalEnvironment.Cell global(Expr.Variable expr) {
+        return globals.cell(expr.slot, expr.name);
+    }
+
+    private Object lookUpVariable(Token name, int depth) {
+        if (depth >= 0) {
+            return environment.getAt(depth, name.symbol());
         }
         return globals.get(name);
     }
@@ -227,34 +584,39 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         if (a == null)
             return false;
 
-        return a.equals(b);
+        return Rope.flatten(a).equals(Rope.flatten(b));
     }
 
-    private String stringify(Object object) {
+    static String stringify(Object object) {
         if (object == null)
             return "nil";
 
-        if (object instanceof Double) {
-            String text = object.toString();
-            if (text.endsWith(".0")) {
-                text = text.substring(0, text.length() - 2);
-            }
-            return text;
+        if (object instanceof Double number) {
+            return NumberFormatter.format(number);
         }
 
         return object.toString();
     }
 
+    // How containers print their elements. A container that is already being printed, because it contains itself,
+    // prints as a placeholder instead.
+    static String stringify(Object object, Set<Object> printing) {
+        if (object instanceof LoxArray array) return array.toString(printing);
+        if (object instanceof LoxMap map) return map.toString(printing);
+        return stringify(object);
+    }
+
     private Object evaluate(Expr expr) {
         return expr.accept(this);
     }
 
-    private void execute(Stmt stmt) {
-        stmt.accept(this);
+    // Called for the statements in a generator body that resume() runs itself rather than through execute().
+    void resumed(Stmt stmt) {
     }
 
-    void resolve(Expr expr, int depth) {
-        locals.put(expr, depth);
+    void execute(Stmt stmt) {
+        if (Metrics.ENABLED) Metrics.statementsExecuted.increment();
+        stmt.accept(this);
     }
 
     void executeBlock(List<Stmt> statements, Environment environment) {
@@ -289,18 +651,19 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
         }
 
-        environment.define(stmt.name.lexeme(), null);
+        environment.define(stmt.name.symbol(), null);
 
         if (stmt.superclass != null) {
             environment = new Environment(environment);
-            environment.define("super", superclass);
+            environment.define(Symbol.SUPER, superclass);
         }
 
-        final Map<String, LoxFunction> methods = new HashMap<>();
+        if (budget != null) allocate(stmt.name, INSTANCE_BYTES + (ENTRY_BYTES + FUNCTION_BYTES) * stmt.methods.size());
+        final Map<Symbol, LoxFunction> methods = new HashMap<>();
         for (final Stmt.Function method : stmt.methods) {
-            final boolean isInitializer = method.name.lexeme().equals("init");
+            final boolean isInitializer = method.name.symbol() == Symbol.INIT;
             final LoxFunction function = new LoxFunction(method, environment, isInitializer);
-            methods.put(method.name.lexeme(), function);
+            methods.put(method.name.symbol(), function);
         }
 
         final LoxClass klass = new LoxClass(stmt.name.lexeme(), (LoxClass) superclass, methods);
@@ -321,7 +684,8 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitFunctionStmt(Stmt.Function stmt) {
-        environment.define(stmt.name.lexeme(), new LoxFunction(stmt, environment, false));
+        if (budget != null) allocate(stmt.name, ENTRY_BYTES + FUNCTION_BYTES);
+        environment.define(stmt.name.symbol(), new LoxFunction(stmt, environment, false));
         return null;
     }
 
@@ -338,7 +702,11 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitPrintStmt(Stmt.Print stmt) {
         final Object value = evaluate(stmt.expression);
-        System.out.println(stringify(value));
+        if (value instanceof Double number) {
+            out.println((double) number);
+        } else {
+            out.println(stringify(value));
+        }
         return null;
     }
 
@@ -351,7 +719,8 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitVarStmt(Stmt.Var stmt) {
         final Object value = (stmt.initializer != null) ? evaluate(stmt.initializer) : null;
-        environment.define(stmt.name.lexeme(), value);
+        if (budget != null) allocate(stmt.name, ENTRY_BYTES);
+        environment.define(stmt.name.symbol(), value);
         return null;
     }
 
@@ -359,18 +728,187 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Void visitWhileStmt(Stmt.While stmt) {
         while (isTruthy(evaluate(stmt.condition))) {
             execute(stmt.body);
+            backEdge(stmt.keyword);
         }
         return null;
     }
 
+    private void backEdge(Token keyword) {
+        if (timeslice != null) timeslice.tick();
+        if (budget != null) step(keyword);
+    }
+
+    @Override
+    public Void visitForEachStmt(Stmt.ForEach stmt) {
+        final Items items = items(stmt.keyword, evaluate(stmt.iterable));
+        while (items.hasNext()) {
+            final Environment scope = new Environment(environment);
+            scope.define(stmt.name.symbol(), items.next());
+            final Environment previous = environment;
+            try {
+                environment = scope;
+                execute(stmt.body);
+            } finally {
+                environment = previous;
+            }
+            backEdge(stmt.keyword);
+        }
+        return null;
+    }
+
+    private Items items(Token keyword, Object iterable) {
+        if (iterable instanceof LoxArray array) {
+            return new Items() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < array.size();
+                }
+
+                @Override
+                public Object next() {
+                    return array.get(index++);
+                }
+            };
+        }
+        if (iterable instanceof LoxMap map) {
+            try {
+                return items(keyword, map.keys(this));
+            } catch (NativeError error) {
+                throw nativeError(keyword, error);
+            }
+        }
+        if (iterable instanceof LoxGenerator generator) {
+            return new Items() {
+                @Override
+                public boolean hasNext() {
+                    try {
+                        return generator.hasNext(Interpreter.this);
+                    } catch (NativeError error) {
+                        throw new RuntimeError(keyword, error.getMessage());
+                    }
+                }
+
+                @Override
+                public Object next() {
+                    return generator.next(Interpreter.this);
+                }
+            };
+        }
+        if (iterable instanceof Items items) {
+            return new Items() {
+                @Override
+                public boolean hasNext() {
+                    try {
+                        return items.hasNext();
+                    } catch (NativeError error) {
+                        throw new RuntimeError(keyword, error.getMessage());
+                    }
+                }
+
+                @Override
+                public Object next() {
+                    final Object item = items.next();
+                    if (budget != null && item instanceof String string) {
+                        allocate(keyword, STRING_BYTES + string.length());
+                    }
+                    return item;
+                }
+            };
+        }
+        throw new RuntimeError(keyword, "Can only iterate over arrays, maps, generators and files.");
+    }
+
+    @Override
+    public Void visitYieldStmt(Stmt.Yield stmt) {
+        // Generator bodies are run by resume(), which handles yield itself.
+        throw new RuntimeError(stmt.keyword, "Can only yield inside a generator.");
+    }
+
+    // Runs a generator's body from where it was suspended to its next yield, returning the yielded value, or FINISHED
+    // once the body completes or returns.
+    Object resume(LoxGenerator generator) {
+        final Deque<Object> frames = generator.frames;
+        final Environment previous = environment;
+        try {
+            while (!frames.isEmpty()) {
+                switch (frames.peek()) {
+                    case LoxGenerator.Block block -> {
+                        if (block.index == block.statements.size()) {
+                            frames.pop();
+                            continue;
+                        }
+                        environment = block.environment;
+                        final Stmt statement = block.statements.get(block.index++);
+                        if (statement instanceof Stmt.Yield yield) {
+                            resumed(yield);
+                            return yield.value != null ? evaluate(yield.value) : null;
+                        }
+                        enter(statement, frames);
+                    }
+                    case LoxGenerator.Loop loop -> {
+                        environment = loop.environment();
+                        if (!isTruthy(evaluate(loop.loop().condition))) {
+                            frames.pop();
+                            continue;
+                        }
+                        frames.push(new LoxGenerator.Block(List.of(loop.loop().body), environment));
+                        backEdge(loop.loop().keyword);
+                    }
+                    case LoxGenerator.Each each -> {
+                        environment = each.environment();
+                        if (!each.items().hasNext()) {
+                            frames.pop();
+                            continue;
+                        }
+                        final Environment scope = new Environment(environment);
+                        scope.define(each.loop().name.symbol(), each.items().next());
+                        frames.push(new LoxGenerator.Block(List.of(each.loop().body), scope));
+                        backEdge(each.loop().keyword);
+                    }
+                    default -> throw new IllegalStateException();
+                }
+            }
+        } catch (Return ret) {
+            frames.clear();
+        } finally {
+            environment = previous;
+        }
+        return FINISHED;
+    }
+
+    // Statements that may contain a yield get a frame; anything else runs to completion right away.
+    private void enter(Stmt statement, Deque<Object> frames) {
+        switch (statement) {
+            case Stmt.Block block -> {
+                resumed(block);
+                frames.push(new LoxGenerator.Block(block.statements, new Environment(environment)));
+            }
+            case Stmt.If branch -> {
+                resumed(branch);
+                final Stmt taken = isTruthy(evaluate(branch.condition)) ? branch.thenBranch : branch.elseBranch;
+                if (taken != null) frames.push(new LoxGenerator.Block(List.of(taken), environment));
+            }
+            case Stmt.While loop -> {
+                resumed(loop);
+                frames.push(new LoxGenerator.Loop(loop, environment));
+            }
+            case Stmt.ForEach loop -> {
+                resumed(loop);
+                frames.push(new LoxGenerator.Each(loop, items(loop.keyword, evaluate(loop.iterable)), environment));
+            }
+            default -> execute(statement);
+        }
+    }
+
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
         final Object value = evaluate(expr.value);
-        final Integer distance = locals.get(expr);
-        if (distance != null) {
-            environment.assignAt(distance, expr.name, value);
+        if (expr.depth >= 0) {
+            environment.assignAt(expr.depth, expr.name, value);
         } else {
-            globals.assign(expr.name, value);
+            globals.cell(expr.slot, expr.name).set(expr.name, value);
         }
         return value;
     }
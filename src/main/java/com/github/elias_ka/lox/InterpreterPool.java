@@ -0,0 +1,116 @@
+package com.github.elias_ka.lox;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// A fixed set of interpreters that are initialized once, including running an optional prelude program, and reused
+// across executions. Each execution checks an interpreter out and puts it back with its globals restored to the
+// post-initialization state. Only the bindings themselves are reset: objects the prelude created and a script
+// mutated stay mutated.
+//
+// With -Djlox.metrics=true the pool is published as com.github.elias_ka.lox:type=InterpreterPool,name=pool-<n>.
+public final class InterpreterPool implements InterpreterPoolMXBean {
+    private record Pooled(Interpreter interpreter, ErrorReporter reporter) {
+    }
+
+    private static final AtomicInteger poolIds = new AtomicInteger();
+
+    private final int size;
+    private final BlockingQueue<Pooled> idle;
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder resetNanos = new LongAdder();
+
+    public InterpreterPool(int size, PrintStream out, PrintStream err) {
+        this(size, out, err, null);
+    }
+
+    public InterpreterPool(int size, PrintStream out, PrintStream err, Program prelude) {
+        this.size = size;
+        this.idle = new ArrayBlockingQueue<>(size);
+
+        for (var i = 0; i < size; i++) {
+            final ErrorReporter reporter = new ErrorReporter(err);
+            final Interpreter interpreter = new Interpreter(reporter, new OutputSink(out, false));
+            if (prelude != null) {
+                interpreter.interpret(prelude);
+                if (reporter.hadRuntimeError()) {
+                    throw new IllegalArgumentException("Prelude failed with a runtime error.");
+                }
+            }
+            interpreter.markBaseline();
+            idle.add(new Pooled(interpreter, reporter));
+        }
+
+        if (Metrics.ENABLED) Metrics.register(this, "type=InterpreterPool,name=pool-" + poolIds.incrementAndGet());
+    }
+
+    // Waits for a free interpreter, then executes the program like Lox.execute(). Returns false if the program stopped
+    // with a runtime error.
+    public boolean execute(Program program, Map<String, Object> bindings) throws InterruptedException {
+        return execute(program, bindings, ExecutionLimits.NONE);
+    }
+
+    // Limits are applied from the moment an interpreter has been checked out, so waiting for one doesn't count.
+    public boolean execute(Program program, Map<String, Object> bindings, ExecutionLimits limits)
+            throws InterruptedException {
+        final long start = System.nanoTime();
+        final Pooled pooled = idle.take();
+        waitNanos.add(System.nanoTime() - start);
+        checkouts.increment();
+
+        try {
+            pooled.interpreter().defineGlobals(bindings);
+            pooled.interpreter().limit(limits);
+            Lox.execute(pooled.interpreter(), program, pooled.reporter());
+            return !pooled.reporter().hadRuntimeError();
+        } finally {
+            final long resetStart = System.nanoTime();
+            pooled.interpreter().reset();
+            pooled.reporter().reset();
+            resetNanos.add(System.nanoTime() - resetStart);
+            idle.add(pooled);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getAvailable() {
+        return idle.size();
+    }
+
+    @Override
+    public long getCheckouts() {
+        return checkouts.sum();
+    }
+
+    @Override
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    @Override
+    public double getAverageWaitMicros() {
+        final long count = checkouts.sum();
+        return count == 0 ? 0 : waitNanos.sum() / 1e3 / count;
+    }
+
+    @Override
+    public long getTotalResetNanos() {
+        return resetNanos.sum();
+    }
+
+    @Override
+    public double getAverageResetMicros() {
+        final long count = checkouts.sum();
+        return count == 0 ? 0 : resetNanos.sum() / 1e3 / count;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.elias_ka.lox;
+
+public interface InterpreterPoolMXBean {
+    int getSize();
+
+    int getAvailable();
+
+    long getCheckouts();
+
+    long getTotalWaitNanos();
+
+    double getAverageWaitMicros();
+
+    long getTotalResetNanos();
+
+    double getAverageResetMicros();
+}
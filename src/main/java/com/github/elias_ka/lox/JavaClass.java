@@ -0,0 +1,41 @@
+package com.github.elias_ka.lox;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+// A Java class bound as a global, whose properties are its public static methods and fields.
+record JavaClass(Class<?> type) implements NativeObject {
+    @Override
+    public Object get(Token name) {
+        final JavaMethod method = JavaInterop.staticMethod(type, name.lexeme());
+        return method != null ? method : field(name);
+    }
+
+    @Override
+    public Object get(Expr.Get expr) {
+        final JavaInterop.Slot slot = JavaInterop.slot(expr, type, true);
+        return slot != null ? slot.method() : field(expr.name);
+    }
+
+    private Object field(Token name) {
+        final Object value;
+        try {
+            final Field field = type.getField(name.lexeme());
+            if (!Modifier.isStatic(field.getModifiers())) throw NativeObject.undefinedProperty(name);
+            value = field.get(null);
+        } catch (NoSuchFieldException | IllegalAccessException ignored) {
+            // Not a readable static field.
+            throw NativeObject.undefinedProperty(name);
+        }
+        try {
+            return JavaInterop.toLox(value);
+        } catch (NativeError error) {
+            throw new RuntimeError(name, error.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<java class %s>".formatted(type.getName());
+    }
+}
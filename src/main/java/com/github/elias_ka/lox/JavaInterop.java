@@ -0,0 +1,422 @@
+package com.github.elias_ka.lox;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lets scripts call public Java methods. A Class passed in the bindings becomes a JavaClass, whose properties are
+// the class's static methods and fields; any other Java object becomes a JavaObject, whose properties are its
+// instance methods.
+//
+// Overloads are chosen by the Lox types of the arguments: numbers prefer double, then the other primitive number
+// types from widest to narrowest; strings prefer String, then CharSequence, then char. The chosen method is turned
+// into a MethodHandle with the argument and return conversions folded in, and cached on the call site for as long as
+// the site keeps calling the same overloads with the same argument types.
+//
+// Nothing reflective is reachable: getClass and every method taking or returning a Class, ClassLoader, Module or a
+// java.lang.reflect or java.lang.invoke type are left out, and such values are never wrapped.
+final class JavaInterop {
+    // What a call site remembers about its last Java call, in a volatile field of the call expression. The handle has
+    // the type (Object, Object[])Object and takes the receiver, ignored for static methods, and the arguments.
+    record Site(Method[] overloads, Class<?>[] types, MethodHandle handle) {
+        boolean matches(Method[] overloads, List<Object> arguments) {
+            if (this.overloads != overloads || types.length != arguments.size()) return false;
+            for (var i = 0; i < types.length; i++) {
+                if (types[i] != typeOf(arguments.get(i))) return false;
+            }
+            return true;
+        }
+    }
+
+    // A class's static or instance methods, numbered so a property access can cache where its method is. The methods
+    // are unbound; instance methods are bound to a receiver with JavaMethod.bind.
+    record Methods(Map<String, Integer> indices, JavaMethod[] methods) {
+        JavaMethod get(String name) {
+            final Integer index = indices.get(name);
+            return index == null ? null : methods[index];
+        }
+    }
+
+    // What a property access remembers about the last class it read a method from, in a volatile field of the
+    // expression.
+    record Slot(Class<?> type, boolean isStatic, JavaMethod method, int index) {
+    }
+
+    private static final ClassValue<Methods> STATIC_METHODS = new ClassValue<>() {
+        @Override
+        protected Methods computeValue(Class<?> type) {
+            return methods(type, true);
+        }
+    };
+
+    private static final ClassValue<Methods> INSTANCE_METHODS = new ClassValue<>() {
+        @Override
+        protected Methods computeValue(Class<?> type) {
+            return methods(type, false);
+        }
+    };
+
+    private static final MethodHandles.Lookup PUBLIC = MethodHandles.publicLookup();
+    private static final Map<Class<?>, MethodHandle> TO_JAVA = new HashMap<>();
+    private static final MethodHandle TO_REFERENCE;
+    private static final MethodHandle TO_LOX;
+    private static final MethodHandle RETURN_NIL = MethodHandles.constant(Object.class, null);
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            for (final Class<?> type : List.of(double.class, float.class, long.class, int.class, short.class,
+                    byte.class, char.class, boolean.class)) {
+                final String name = "to" + Character.toUpperCase(type.getName().charAt(0))
+                        + type.getName().substring(1);
+                final MethodHandle converter =
+                        lookup.findStatic(JavaInterop.class, name, MethodType.methodType(type, Object.class));
+                final Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+                TO_JAVA.put(type, converter);
+                TO_JAVA.put(boxed, converter.asType(MethodType.methodType(boxed, Object.class)));
+            }
+            TO_REFERENCE = lookup.findStatic(JavaInterop.class, "toReference",
+                    MethodType.methodType(Object.class, Object.class));
+            TO_LOX = lookup.findStatic(JavaInterop.class, "toLox", MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private JavaInterop() {
+    }
+
+    // Converts a value bound from Java into the Lox value scripts see.
+    static Object wrap(Object value) {
+        if (value instanceof Class<?> type) {
+            if (isRestricted(type)) {
+                throw new IllegalArgumentException("Cannot bind %s: scripts can't use reflection.".formatted(type));
+            }
+            return new JavaClass(type);
+        }
+        if (value != null && isRestricted(value.getClass())) {
+            throw new IllegalArgumentException("Cannot bind a %s: scripts can't use reflection."
+                    .formatted(value.getClass().getName()));
+        }
+        return toLox(value);
+    }
+
+    // Finds the named method for a property access, through the slot cached on the access when it last read from the
+    // same class. Null if the class has no such method.
+    static Slot slot(Expr.Get expr, Class<?> type, boolean isStatic) {
+        if (expr.cache instanceof Slot slot && slot.type() == type && slot.isStatic() == isStatic) return slot;
+        final Methods methods = (isStatic ? STATIC_METHODS : INSTANCE_METHODS).get(type);
+        final Integer index = methods.indices().get(expr.name.lexeme());
+        if (index == null) return null;
+        final Slot slot = new Slot(type, isStatic, methods.methods()[index], index);
+        expr.cache = slot;
+        return slot;
+    }
+
+    static JavaMethod staticMethod(Class<?> type, String name) {
+        return STATIC_METHODS.get(type).get(name);
+    }
+
+    static JavaMethod instanceMethod(Class<?> type, String name) {
+        return INSTANCE_METHODS.get(type).get(name);
+    }
+
+    static int instanceMethodCount(Class<?> type) {
+        return INSTANCE_METHODS.get(type).methods().length;
+    }
+
+    private static boolean isRestricted(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        final String packageName = type.getPackageName();
+        return type == Class.class || type == Module.class || ClassLoader.class.isAssignableFrom(type)
+                || packageName.equals("java.lang.reflect") || packageName.equals("java.lang.invoke");
+    }
+
+    private static boolean isRestricted(Method method) {
+        if (method.getName().equals("getClass") || isRestricted(method.getReturnType())) return true;
+        for (final Class<?> parameter : method.getParameterTypes()) {
+            if (isRestricted(parameter)) return true;
+        }
+        return false;
+    }
+
+    private static Methods methods(Class<?> type, boolean isStatic) {
+        final Map<String, List<Method>> byName = new LinkedHashMap<>();
+        for (final Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) != isStatic || isRestricted(method)) continue;
+            final Method accessible = accessible(method);
+            if (accessible == null) continue;
+            final List<Method> overloads = byName.computeIfAbsent(method.getName(), name -> new ArrayList<>());
+            // An inherited method can be found through more than one public supertype, and an override with a
+            // covariant return type comes with a bridge method. Bridges are otherwise kept, as they are how a public
+            // class exposes methods inherited from a package-private one, like StringBuilder.length().
+            final int existing = indexOf(overloads, accessible.getParameterTypes());
+            if (existing < 0) {
+                overloads.add(accessible);
+            } else if (overloads.get(existing).isBridge() && !accessible.isBridge()) {
+                overloads.set(existing, accessible);
+            }
+        }
+        final Map<String, Integer> indices = new HashMap<>();
+        final JavaMethod[] methods = new JavaMethod[byName.size()];
+        byName.forEach((name, overloads) -> {
+            indices.put(name, indices.size());
+            methods[indices.size() - 1] = new JavaMethod(name, overloads.toArray(Method[]::new), null);
+        });
+        return new Methods(indices, methods);
+    }
+
+    private static int indexOf(List<Method> overloads, Class<?>[] parameters) {
+        for (var i = 0; i < overloads.size(); i++) {
+            if (Arrays.equals(overloads.get(i).getParameterTypes(), parameters)) return i;
+        }
+        return -1;
+    }
+
+    // A public method may be declared by a class that isn't itself accessible, like the implementation classes behind
+    // List.of(); it is then called through a public supertype that declares it.
+    private static Method accessible(Method method) {
+        if (isAccessible(method.getDeclaringClass())) return method;
+        if (Modifier.isStatic(method.getModifiers())) return null;
+        final List<Class<?>> supertypes = new ArrayList<>(List.of(method.getDeclaringClass().getInterfaces()));
+        for (Class<?> type = method.getDeclaringClass().getSuperclass(); type != null; type = type.getSuperclass()) {
+            supertypes.add(type);
+            supertypes.addAll(List.of(type.getInterfaces()));
+        }
+        for (var i = 0; i < supertypes.size(); i++) {
+            final Class<?> type = supertypes.get(i);
+            if (isAccessible(type)) {
+                try {
+                    return type.getMethod(method.getName(), method.getParameterTypes());
+                } catch (NoSuchMethodException ignored) {
+                    // Not declared here.
+                }
+            }
+            supertypes.addAll(List.of(type.getInterfaces()));
+        }
+        return null;
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+        return Modifier.isPublic(type.getModifiers()) && type.getModule().isExported(type.getPackageName());
+    }
+
+    static Site resolve(String name, Method[] overloads, List<Object> arguments) {
+        final Class<?>[] types = new Class<?>[arguments.size()];
+        for (var i = 0; i < types.length; i++) {
+            types[i] = typeOf(arguments.get(i));
+        }
+
+        Method best = null;
+        int bestCost = Integer.MAX_VALUE;
+        boolean ambiguous = false;
+        for (final Method method : overloads) {
+            final int cost = cost(method, types);
+            if (cost < bestCost) {
+                best = method;
+                bestCost = cost;
+                ambiguous = false;
+            } else if (cost == bestCost && cost != Integer.MAX_VALUE) {
+                ambiguous = true;
+            }
+        }
+        if (best == null) {
+            throw new NativeError("No overload of '%s' takes (%s).".formatted(name, describe(types)));
+        }
+        if (ambiguous) {
+            throw new NativeError("Call to '%s' with (%s) is ambiguous.".formatted(name, describe(types)));
+        }
+        return new Site(overloads, types, handle(best));
+    }
+
+    // The class of a Lox value as far as overload resolution is concerned, with nil as Void.
+    static Class<?> typeOf(Object value) {
+        return switch (value) {
+            case null -> Void.class;
+            case Rope ignored -> String.class;
+            case JavaObject object -> object.target().getClass();
+            default -> value.getClass();
+        };
+    }
+
+    private static int cost(Method method, Class<?>[] types) {
+        final Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length != types.length) return Integer.MAX_VALUE;
+        int total = 0;
+        for (var i = 0; i < parameters.length; i++) {
+            final int cost = cost(parameters[i], types[i]);
+            if (cost == Integer.MAX_VALUE) return cost;
+            total += cost;
+        }
+        return total;
+    }
+
+    private static int cost(Class<?> parameter, Class<?> type) {
+        if (parameter == Object.class) return 8;
+        if (type == Void.class) return parameter.isPrimitive() ? Integer.MAX_VALUE : 7;
+
+        final Class<?> unboxed =
+                parameter.isPrimitive() ? parameter : MethodType.methodType(parameter).unwrap().returnType();
+        if (type == Double.class) {
+            final int rank = List.of(double.class, float.class, long.class, int.class, short.class, byte.class)
+                    .indexOf(unboxed);
+            if (rank >= 0) return rank;
+            return parameter == Number.class ? 6 : Integer.MAX_VALUE;
+        }
+        if (type == String.class) {
+            if (parameter == String.class) return 0;
+            if (parameter == CharSequence.class) return 1;
+            return unboxed == char.class ? 2 : Integer.MAX_VALUE;
+        }
+        if (type == Boolean.class) {
+            return unboxed == boolean.class ? 0 : Integer.MAX_VALUE;
+        }
+        return !parameter.isPrimitive() && parameter.isAssignableFrom(type) ? 1 : Integer.MAX_VALUE;
+    }
+
+    private static String describe(Class<?>[] types) {
+        return String.join(", ", Arrays.stream(types).map(type -> {
+            if (type == Void.class) return "nil";
+            if (type == Double.class) return "number";
+            if (type == String.class) return "string";
+            if (type == Boolean.class) return "boolean";
+            return type.getSimpleName();
+        }).toList());
+    }
+
+    private static MethodHandle handle(Method method) {
+        MethodHandle handle;
+        try {
+            handle = PUBLIC.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new NativeError("Cannot call '%s': %s".formatted(method.getName(), e.getMessage()));
+        }
+
+        final Class<?>[] parameters = method.getParameterTypes();
+        final int offset = Modifier.isStatic(method.getModifiers()) ? 0 : 1;
+        final MethodHandle[] filters = new MethodHandle[parameters.length];
+        for (var i = 0; i < parameters.length; i++) {
+            final MethodHandle converter = TO_JAVA.get(parameters[i]);
+            filters[i] = converter != null
+                    ? converter
+                    : TO_REFERENCE.asType(MethodType.methodType(parameters[i], Object.class));
+        }
+        handle = MethodHandles.filterArguments(handle, offset, filters);
+
+        final Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) {
+            handle = MethodHandles.filterReturnValue(handle, RETURN_NIL);
+        } else if (returnType == boolean.class) {
+            handle = handle.asType(handle.type().changeReturnType(Object.class));
+        } else if (returnType.isPrimitive() && returnType != char.class) {
+            // Every number is a double in Lox.
+            handle = handle.asType(handle.type().changeReturnType(double.class))
+                    .asType(handle.type().changeReturnType(Object.class));
+        } else {
+            handle = MethodHandles.filterReturnValue(handle.asType(handle.type().changeReturnType(Object.class)),
+                    TO_LOX);
+        }
+
+        if (offset == 0) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(handle.type().changeParameterType(0, Object.class))
+                .asSpreader(1, Object[].class, parameters.length)
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+    }
+
+    static Object invoke(String name, Site site, Object receiver, List<Object> arguments) {
+        try {
+            return (Object) site.handle().invokeExact(receiver, arguments.toArray());
+        } catch (NativeError | RuntimeError e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new NativeError("Java method '%s' threw %s.".formatted(name, e));
+        }
+    }
+
+    // Argument conversions, picked by parameter type. Overload resolution has already checked the Lox types.
+
+    private static double toDouble(Object value) {
+        return (Double) value;
+    }
+
+    private static float toFloat(Object value) {
+        return (float) (double) (Double) value;
+    }
+
+    private static long toLong(Object value) {
+        return NativeFunction.integer(value, "Argument");
+    }
+
+    private static int toInt(Object value) {
+        return (int) toRange(value, Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
+    }
+
+    private static short toShort(Object value) {
+        return (short) toRange(value, Short.MIN_VALUE, Short.MAX_VALUE, "short");
+    }
+
+    private static byte toByte(Object value) {
+        return (byte) toRange(value, Byte.MIN_VALUE, Byte.MAX_VALUE, "byte");
+    }
+
+    private static long toRange(Object value, long min, long max, String type) {
+        final long number = toLong(value);
+        if (number < min || number > max) {
+            throw new NativeError("Argument %s is out of range for %s.".formatted(Interpreter.stringify(value), type));
+        }
+        return number;
+    }
+
+    private static char toChar(Object value) {
+        final String string = value.toString();
+        if (string.length() != 1) {
+            throw new NativeError("Argument must be a single character.");
+        }
+        return string.charAt(0);
+    }
+
+    private static boolean toBoolean(Object value) {
+        return (Boolean) value;
+    }
+
+    private static Object toReference(Object value) {
+        return switch (value) {
+            case JavaObject object -> object.target();
+            case Rope rope -> rope.toString();
+            case null, default -> value;
+        };
+    }
+
+    static Object toLox(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Double ignored -> value;
+            case Number number -> number.doubleValue();
+            case Character character -> character.toString();
+            case String ignored -> value;
+            case Boolean ignored -> value;
+            case Rope ignored -> value;
+            case LoxCallable ignored -> value;
+            case NativeObject ignored -> value;
+            case LoxInstance ignored -> value;
+            default -> {
+                if (isRestricted(value.getClass())) {
+                    throw new NativeError("Scripts can't use a %s.".formatted(value.getClass().getName()));
+                }
+                yield new JavaObject(value);
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.elias_ka.lox;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+// The overloads of a Java method with the same name, bound to a receiver unless they are static.
+class JavaMethod implements LoxCallable {
+    private final String name;
+    private final Method[] overloads;
+    private final Object receiver;
+
+    JavaMethod(String name, Method[] overloads, Object receiver) {
+        this.name = name;
+        this.overloads = overloads;
+        this.receiver = receiver;
+    }
+
+    JavaMethod bind(Object receiver) {
+        return new JavaMethod(name, overloads, receiver);
+    }
+
+    // Calls through the site's cached handle, resolving the overload again only when the site sees new argument types.
+    Object call(Expr.Call expr, List<Object> arguments) {
+        JavaInterop.Site site = expr.site instanceof JavaInterop.Site cached ? cached : null;
+        if (site == null || !site.matches(overloads, arguments)) {
+            site = JavaInterop.resolve(name, overloads, arguments);
+            expr.site = site;
+        }
+        return JavaInterop.invoke(name, site, receiver, arguments);
+    }
+
+    @Override
+    public int arity() {
+        return VARIADIC;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return JavaInterop.invoke(name, JavaInterop.resolve(name, overloads, arguments), receiver, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "<java fn %s>".formatted(name);
+    }
+}
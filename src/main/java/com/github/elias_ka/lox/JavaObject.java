@@ -0,0 +1,61 @@
+package com.github.elias_ka.lox;
+
+// A Java object passed to or returned to a script, whose properties are its public instance methods. Two wrappers
+// are equal if their objects are.
+final class JavaObject implements NativeObject {
+    private final Object target;
+    // The target's methods, bound on first use and indexed like its class's method table. Threads racing to bind a
+    // method only cost an extra JavaMethod.
+    private JavaMethod[] methods;
+
+    JavaObject(Object target) {
+        this.target = target;
+    }
+
+    Object target() {
+        return target;
+    }
+
+    @Override
+    public Object get(Token name) {
+        final JavaMethod method = JavaInterop.instanceMethod(target.getClass(), name.lexeme());
+        if (method == null) {
+            throw NativeObject.undefinedProperty(name);
+        }
+        return method.bind(target);
+    }
+
+    @Override
+    public Object get(Expr.Get expr) {
+        final JavaInterop.Slot slot = JavaInterop.slot(expr, target.getClass(), false);
+        if (slot == null) {
+            throw NativeObject.undefinedProperty(expr.name);
+        }
+        JavaMethod[] bound = methods;
+        if (bound == null) {
+            bound = new JavaMethod[JavaInterop.instanceMethodCount(target.getClass())];
+            methods = bound;
+        }
+        JavaMethod method = bound[slot.index()];
+        if (method == null) {
+            method = slot.method().bind(target);
+            bound[slot.index()] = method;
+        }
+        return method;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof JavaObject object && target.equals(object.target);
+    }
+
+    @Override
+    public int hashCode() {
+        return target.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return target.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.elias_ka.lox;
+
+import java.io.PrintStream;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Records which lines of a script ran, one bit per line. Lines past the count given up front are ignored.
+public final class LineCoverage implements ExecutionListener {
+    private final int lines;
+    private final AtomicLongArray covered;
+
+    public LineCoverage(int lines) {
+        this.lines = lines;
+        this.covered = new AtomicLongArray((lines >>> 6) + 1);
+    }
+
+    @Override
+    public void onStatement(int line) {
+        if (line <= 0 || line > lines) return;
+        final long bit = 1L << line;
+        // Reading first keeps lines that run over and over from contending on the same word.
+        if ((covered.get(line >>> 6) & bit) == 0) {
+            covered.getAndAccumulate(line >>> 6, bit, (word, mask) -> word | mask);
+        }
+    }
+
+    public boolean isCovered(int line) {
+        return line > 0 && line <= lines && (covered.get(line >>> 6) & (1L << line)) != 0;
+    }
+
+    // Prints the source with each line that has statements marked '+' if it ran and '-' if it didn't, then a summary.
+    public void report(PrintStream out, Program program, String source) {
+        final BitSet executable = new BitSet();
+        mark(program.getStatements(), executable);
+        executable.clear(0);
+
+        int count = 0;
+        int line = 0;
+        for (final String text : source.lines().toList()) {
+            line++;
+            final char marker;
+            if (!executable.get(line)) {
+                marker = ' ';
+            } else if (isCovered(line)) {
+                marker = '+';
+                count++;
+            } else {
+                marker = '-';
+            }
+            out.printf("%c %5d  %s%n", marker, line, text);
+        }
+
+        final int total = executable.cardinality();
+        out.printf("%d of %d lines covered (%.1f%%)%n", count, total, total == 0 ? 100.0 : count * 100.0 / total);
+    }
+
+    private static void mark(List<? extends Stmt> statements, BitSet executable) {
+        for (final Stmt statement : statements) {
+            mark(statement, executable);
+        }
+    }
+
+    private static void mark(Stmt statement, BitSet executable) {
+        if (statement == null) return;
+        executable.set(statement.line);
+        switch (statement) {
+            case Stmt.Block block -> mark(block.statements, executable);
+            case Stmt.Class klass -> klass.methods.forEach(method -> mark(method.body, executable));
+            case Stmt.Function function -> mark(function.body, executable);
+            case Stmt.If branch -> {
+                mark(branch.thenBranch, executable);
+                mark(branch.elseBranch, executable);
+            }
+            case Stmt.While loop -> mark(loop.body, executable);
+            case Stmt.ForEach loop -> mark(loop.body, executable);
+            default -> {
+            }
+        }
+    }
+}
@@ -3,25 +3,93 @@ package com.github.elias_ka.lox;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+// An engine instance owns its interpreter, output and error sink and shares no mutable state with other instances,
+// so independent scripts can run on separate instances concurrently. run() is not thread-safe, but compile() and
+// execute() are: a program compiled once can be executed by many threads at the same time.
 public class Lox {
-    private static final Interpreter interpreter = new Interpreter();
-    private static boolean hadError = false;
-    private static boolean hadRuntimeError = false;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final boolean lineBuffered;
+    private final ExecutionListener listener;
+    private final ErrorReporter reporter;
+    private final Interpreter interpreter;
+    private boolean fileAccess;
+
+    public Lox() {
+        this(System.out, System.err);
+    }
+
+    public Lox(PrintStream out, PrintStream err) {
+        this(out, err, false);
+    }
+
+    // Script output is buffered and written at the end of each run, or when the buffer fills up. A line-buffered
+    // engine writes every line as it is printed instead, for watching a script's progress.
+    public Lox(PrintStream out, PrintStream err, boolean lineBuffered) {
+        this(out, err, lineBuffered, null);
+    }
+
+    // Everything this engine runs reports to the listener. Pass null for none.
+    public Lox(PrintStream out, PrintStream err, boolean lineBuffered, ExecutionListener listener) {
+        this.out = out;
+        this.err = err;
+        this.lineBuffered = lineBuffered;
+        this.listener = listener;
+        this.reporter = new ErrorReporter(err);
+        this.interpreter = newInterpreter(reporter);
+    }
+
+    private Interpreter newInterpreter(ErrorReporter reporter) {
+        final OutputSink sink = new OutputSink(out, lineBuffered);
+        final Interpreter interpreter = listener == null
+                ? new Interpreter(reporter, sink)
+                : InstrumentedInterpreter.create(reporter, sink, listener);
+        if (fileAccess) interpreter.enableFileAccess();
+        return interpreter;
+    }
+
+    // Gives scripts run by this engine the file natives of FileIO. They are off by default, since they reach the
+    // host's file system. Files left open by execute() are closed when it returns; those opened by run() stay open
+    // for later runs until closeFiles().
+    public void enableFileAccess() {
+        fileAccess = true;
+        interpreter.enableFileAccess();
+    }
+
+    public void closeFiles() {
+        interpreter.closeFiles();
+    }
 
     public static void main(String[] args) {
+        final List<String> arguments = new ArrayList<>(List.of(args));
+        final boolean profile = arguments.remove("--profile");
+        final boolean coverage = arguments.remove("--coverage");
+        final boolean lineBuffered = arguments.remove("--line-buffered");
+        final Lox lox = new Lox(System.out, System.err, lineBuffered);
+        lox.enableFileAccess();
+
         try {
-            if (args.length > 1) {
-                System.out.println("Usage: jlox [script]");
+            if (arguments.size() > 1 || ((profile || coverage) && arguments.isEmpty()) || (profile && coverage)) {
+                System.out.println("Usage: jlox [--profile | --coverage] [--line-buffered] [script]");
                 System.exit(64);
-            } else if (args.length == 1) {
-                runFile(args[0]);
+            } else if (profile) {
+                lox.profileFile(arguments.get(0));
+            } else if (coverage) {
+                coverFile(arguments.get(0), lineBuffered);
+            } else if (arguments.size() == 1) {
+                lox.runFile(arguments.get(0));
             } else {
-                runPrompt();
+                lox.runPrompt();
             }
         } catch (IOException e) {
             System.err.println(e.getMessage());
@@ -29,65 +97,129 @@ public class Lox {
         }
     }
 
-    private static void runFile(String path) throws IOException {
+    public boolean hadError() {
+        return reporter.hadError();
+    }
+
+    public boolean hadRuntimeError() {
+        return reporter.hadRuntimeError();
+    }
+
+    private void runFile(String path) throws IOException {
         byte[] bytes = Files.readAllBytes(Paths.get(path));
         run(new String(bytes, Charset.defaultCharset()));
-        if (hadError) System.exit(65);
-        if (hadRuntimeError) System.exit(70);
+        closeFiles();
+        if (hadError()) System.exit(65);
+        if (hadRuntimeError()) System.exit(70);
+    }
+
+    private void profileFile(String path) throws IOException {
+        final Profiler profiler = new Profiler();
+        interpreter.setProfiler(profiler);
+        try {
+            byte[] bytes = Files.readAllBytes(Paths.get(path));
+            run(new String(bytes, Charset.defaultCharset()));
+        } finally {
+            closeFiles();
+            interpreter.setProfiler(null);
+            profiler.stop();
+            profiler.report(System.err);
+            try (PrintWriter writer = new PrintWriter(path + ".collapsed", StandardCharsets.UTF_8)) {
+                profiler.writeCollapsed(writer);
+            }
+        }
+        if (hadError()) System.exit(65);
+        if (hadRuntimeError()) System.exit(70);
+    }
+
+    // Runs the script, then prints it to stderr marked up with the lines that ran.
+    private static void coverFile(String path, boolean lineBuffered) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(path));
+        final String source = new String(bytes, Charset.defaultCharset());
+        final LineCoverage coverage = new LineCoverage((int) source.lines().count());
+        final Lox lox = new Lox(System.out, System.err, lineBuffered, coverage);
+        lox.enableFileAccess();
+
+        final Program program = compile(source, lox.reporter);
+        if (program == null) System.exit(65);
+        execute(lox.interpreter, program, lox.reporter);
+        lox.closeFiles();
+        coverage.report(System.err, program, source);
+        if (lox.hadRuntimeError()) System.exit(70);
     }
 
-    private static void runPrompt() throws IOException {
+    private void runPrompt() throws IOException {
         InputStreamReader input = new InputStreamReader(System.in);
         BufferedReader reader = new BufferedReader(input);
 
         for (; ; ) {
-            System.out.print("> ");
+            out.print("> ");
             String line = reader.readLine();
             if (line == null)
                 break;
 
             run(line);
-            hadError = false;
+            reporter.reset();
+        }
+        closeFiles();
+    }
+
+    public void run(String source) {
+        final Program program = compile(source, reporter);
+        if (program != null) {
+            execute(interpreter, program, reporter);
+        }
+    }
+
+    // Returns null if the source has errors, after reporting them to this engine's error stream.
+    public Program compile(String source) {
+        return compile(source, new ErrorReporter(err));
+    }
+
+    // Executes the program with fresh globals, seeded with the given bindings. Numbers may be passed as any Java
+    // Number. Returns false if the program stopped with a runtime error.
+    public boolean execute(Program program, Map<String, Object> bindings) {
+        return execute(program, bindings, ExecutionLimits.NONE);
+    }
+
+    // Like execute(program, bindings), but stops the program with an ExecutionLimitError once it exceeds the limits.
+    public boolean execute(Program program, Map<String, Object> bindings, ExecutionLimits limits) {
+        final ErrorReporter executionReporter = new ErrorReporter(err);
+        final Interpreter executionInterpreter = newInterpreter(executionReporter);
+        executionInterpreter.defineGlobals(bindings);
+        executionInterpreter.limit(limits);
+
+        try {
+            execute(executionInterpreter, program, executionReporter);
+        } finally {
+            executionInterpreter.closeFiles();
         }
+        return !executionReporter.hadRuntimeError();
     }
 
-    private static void run(String source) {
-        final Scanner scanner = new Scanner(source);
+    private static Program compile(String source, ErrorReporter reporter) {
+        final Scanner scanner = new Scanner(source, reporter);
         final List<Token> tokens = scanner.scanTokens();
-        final Parser parser = new Parser(tokens);
+        final Parser parser = new Parser(tokens, reporter);
         final List<Stmt> statements = parser.parse();
 
         // Stop if there was a syntax error.
-        if (hadError) return;
+        if (reporter.hadError()) return null;
 
-        final Resolver resolver = new Resolver(interpreter);
+        final Resolver resolver = new Resolver(reporter);
         resolver.resolve(statements);
 
         // Stop if there was a resolution error.
-        if (hadError) return;
+        if (reporter.hadError()) return null;
 
-        interpreter.interpret(statements);
+        return new Program(statements);
     }
 
-    static void error(int line, String message) {
-        report(line, "", message);
-    }
-
-    private static void report(int line, String where, String message) {
-        System.err.printf("[line %d] Error %s: %s%n", line, where, message);
-        hadError = true;
-    }
-
-    static void error(Token token, String message) {
-        if (token.type() == TokenType.EOF) {
-            report(token.line(), "at end", message);
+    static void execute(Interpreter interpreter, Program program, ErrorReporter reporter) {
+        if (Events.ENABLED) {
+            ScriptExecutionEvent.record(interpreter, program, reporter);
         } else {
-            report(token.line(), "at '" + token.lexeme() + "'", message);
+            interpreter.interpret(program);
         }
     }
-
-    static void runtimeError(RuntimeError error) {
-        System.err.printf("[line %d] Error: %s %n", error.getToken().line(), error.getMessage());
-        hadRuntimeError = true;
-    }
 }
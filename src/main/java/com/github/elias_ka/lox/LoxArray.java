@@ -0,0 +1,120 @@
+package com.github.elias_ka.lox;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+// A growable array. While it holds nothing but numbers the elements are stored unboxed in a double[]; the first
+// non-number moves them to an Object[] for good.
+class LoxArray implements NativeObject {
+    private double[] numbers;
+    private Object[] objects;
+    private int size;
+    // Set once the array is reachable from several threads; elements stored from then on are shared too.
+    private boolean shared;
+
+    LoxArray(int capacity) {
+        numbers = new double[Math.max(capacity, 8)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    Object get(int index) {
+        return objects == null ? (Object) numbers[index] : objects[index];
+    }
+
+    // Growing the array, or moving its elements to an Object[], is charged to the interpreter's memory budget.
+    void set(Interpreter interpreter, int index, Object value) {
+        if (objects == null) {
+            if (value instanceof Double number) {
+                numbers[index] = number;
+                return;
+            }
+            generalize(interpreter);
+        }
+        if (shared) Environment.share(value);
+        objects[index] = value;
+    }
+
+    void push(Interpreter interpreter, Object value) {
+        if (size == capacity()) {
+            grow(interpreter);
+        }
+        set(interpreter, size++, value);
+    }
+
+    Object pop() {
+        if (size == 0) {
+            throw new NativeError("Cannot pop from an empty array.");
+        }
+        final Object value = get(--size);
+        if (objects != null) objects[size] = null;
+        return value;
+    }
+
+    private int capacity() {
+        return objects == null ? numbers.length : objects.length;
+    }
+
+    private void grow(Interpreter interpreter) {
+        final int capacity = capacity() * 2;
+        interpreter.charge(8L * capacity);
+        if (objects == null) {
+            numbers = Arrays.copyOf(numbers, capacity);
+        } else {
+            objects = Arrays.copyOf(objects, capacity);
+        }
+    }
+
+    // Each number is boxed on the way.
+    private void generalize(Interpreter interpreter) {
+        interpreter.charge(8L * numbers.length + 16L * size);
+        objects = new Object[numbers.length];
+        for (var i = 0; i < size; i++) {
+            objects[i] = numbers[i];
+        }
+        numbers = null;
+    }
+
+    // Numbers need no sharing, so only an Object[] is walked.
+    void shareInto(Deque<Object> pending) {
+        if (shared) return;
+        shared = true;
+        for (var i = 0; objects != null && i < size; i++) {
+            if (objects[i] != null) pending.push(objects[i]);
+        }
+    }
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "length" -> new NativeFunction("length", 0, (interpreter, arguments) -> (double) size);
+            case "push" -> new NativeFunction("push", 1, (interpreter, arguments) -> {
+                push(interpreter, arguments.get(0));
+                return null;
+            });
+            case "pop" -> new NativeFunction("pop", 0, (interpreter, arguments) -> pop());
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return toString(Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    String toString(Set<Object> printing) {
+        if (!printing.add(this)) return "[...]";
+        final StringBuilder builder = new StringBuilder("[");
+        for (var i = 0; i < size; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(Interpreter.stringify(get(i), printing));
+        }
+        printing.remove(this);
+        return builder.append("]").toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.elias_ka.lox;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+class LoxAtomicCounter implements NativeObject {
+    private final AtomicLong value;
+
+    LoxAtomicCounter(long initial) {
+        value = new AtomicLong(initial);
+    }
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "get" -> new NativeFunction("get", 0, (interpreter, arguments) -> (double) value.get());
+            case "increment" ->
+                    new NativeFunction("increment", 0, (interpreter, arguments) -> (double) value.incrementAndGet());
+            case "decrement" ->
+                    new NativeFunction("decrement", 0, (interpreter, arguments) -> (double) value.decrementAndGet());
+            case "add" -> new NativeFunction("add", 1, (interpreter, arguments) ->
+                    (double) value.addAndGet(NativeFunction.integer(arguments.get(0), "Amount")));
+            case "compareAndSet" -> new NativeFunction("compareAndSet", 2, (interpreter, arguments) ->
+                    value.compareAndSet(NativeFunction.integer(arguments.get(0), "Expected value"),
+                            NativeFunction.integer(arguments.get(1), "New value")));
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<atomic counter %d>".formatted(value.get());
+    }
+}
@@ -3,6 +3,9 @@ package com.github.elias_ka.lox;
 import java.util.List;
 
 public interface LoxCallable {
+    // Arity of callables that check their argument count themselves.
+    int VARIADIC = -1;
+
     default int arity() {
         return 0;
     }
@@ -0,0 +1,201 @@
+package com.github.elias_ka.lox;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// A channel for passing values between tasks. Values and waiting threads are kept in lock-free queues, and a thread
+// that has to wait registers itself, checks again, then parks; whoever changes the state unparks one waiter. A
+// woken thread that finds there is still work left wakes the next one, so a wakeup taken by a select that ended up
+// receiving elsewhere is never lost.
+//
+// receive() returns nil once the channel is closed and drained.
+class LoxChannel implements NativeObject {
+    record Selection(LoxChannel channel, Object value) implements NativeObject {
+        @Override
+        public Object get(Token name) {
+            return switch (name.lexeme()) {
+                case "channel" -> channel;
+                case "value" -> value;
+                default -> throw NativeObject.undefinedProperty(name);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "<selection>";
+        }
+    }
+
+    private final Queue<Object> items = new ConcurrentLinkedQueue<>();
+    private final Queue<Thread> receivers = new ConcurrentLinkedQueue<>();
+    private final Queue<Thread> senders = new ConcurrentLinkedQueue<>();
+    private final int capacity;
+    // Items sent or about to be sent, only tracked for bounded channels.
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean closed;
+
+    LoxChannel(int capacity) {
+        this.capacity = capacity;
+    }
+
+    static LoxChannel unbounded() {
+        return new LoxChannel(Integer.MAX_VALUE);
+    }
+
+    void send(Object value, long deadline) {
+        if (capacity != Integer.MAX_VALUE) {
+            reserveSlot(deadline);
+        } else if (closed) {
+            throw new NativeError("Cannot send on a closed channel.");
+        }
+
+        Environment.share(value);
+        items.offer(Environment.wrap(value));
+        wakeOne(receivers);
+    }
+
+    private void reserveSlot(long deadline) {
+        final Thread current = Thread.currentThread();
+        while (true) {
+            if (closed) {
+                throw new NativeError("Cannot send on a closed channel.");
+            }
+
+            final int currentSize = size.get();
+            if (currentSize < capacity) {
+                if (size.compareAndSet(currentSize, currentSize + 1)) {
+                    if (currentSize + 1 < capacity) wakeOne(senders);
+                    return;
+                }
+                continue;
+            }
+
+            senders.offer(current);
+            if (size.get() >= capacity && !closed) {
+                park(this, deadline);
+            }
+            senders.remove(current);
+        }
+    }
+
+    Object receive(long deadline) {
+        final Thread current = Thread.currentThread();
+        while (true) {
+            final Object item = poll();
+            if (item != null) {
+                return Environment.unwrap(item);
+            }
+            if (closed && items.isEmpty()) {
+                return null;
+            }
+
+            receivers.offer(current);
+            if (items.isEmpty() && !closed) {
+                park(this, deadline);
+            }
+            receivers.remove(current);
+        }
+    }
+
+    private Object poll() {
+        final Object item = items.poll();
+        if (item != null) {
+            if (capacity != Integer.MAX_VALUE) {
+                size.decrementAndGet();
+                wakeOne(senders);
+            }
+            if (!items.isEmpty()) wakeOne(receivers);
+        }
+        return item;
+    }
+
+    // Waits until one of the channels has a value and receives it. Returns nil once all of them are closed and
+    // drained.
+    static Selection select(List<LoxChannel> channels, long deadline) {
+        final Thread current = Thread.currentThread();
+        boolean registered = false;
+        while (true) {
+            boolean open = false;
+            for (final LoxChannel channel : channels) {
+                final Object item = channel.poll();
+                if (item != null) {
+                    // Having waited on every channel, this thread may have been woken by several sends. Only one of
+                    // those wakeups was used, so the others go to the next receivers of their channels.
+                    if (registered) {
+                        for (final LoxChannel other : channels) {
+                            if (other != channel && !other.items.isEmpty()) wakeOne(other.receivers);
+                        }
+                    }
+                    return new Selection(channel, Environment.unwrap(item));
+                }
+                open |= !channel.closed || !channel.items.isEmpty();
+            }
+            if (!open) {
+                return null;
+            }
+
+            registered = true;
+            channels.forEach(channel -> channel.receivers.offer(current));
+            if (channels.stream().allMatch(channel -> channel.items.isEmpty() && !channel.closed)) {
+                park(channels, deadline);
+            }
+            channels.forEach(channel -> channel.receivers.remove(current));
+        }
+    }
+
+    void close() {
+        closed = true;
+        receivers.forEach(LockSupport::unpark);
+        senders.forEach(LockSupport::unpark);
+    }
+
+    private static void wakeOne(Queue<Thread> waiters) {
+        final Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    // Parks until woken, interrupted or out of time. The deadline is the one Interpreter.blocking() passes on, and is
+    // checked again every time the caller comes back to park after finding nothing to do.
+    private static void park(Object blocker, long deadline) {
+        if (deadline == 0) {
+            LockSupport.park(blocker);
+        } else {
+            LockSupport.parkNanos(blocker, ExecutionBudget.nanosLeft(deadline));
+        }
+        if (Thread.interrupted()) {
+            throw new NativeError("Interrupted while waiting on a channel.");
+        }
+    }
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "send" -> new NativeFunction("send", 1, (interpreter, arguments) -> {
+                // The queue's node for the value.
+                interpreter.charge(Interpreter.ENTRY_BYTES);
+                return interpreter.blocking(deadline -> {
+                    send(arguments.get(0), deadline);
+                    return null;
+                });
+            });
+            case "receive" -> new NativeFunction("receive", 0, (interpreter, arguments) ->
+                    interpreter.blocking(this::receive));
+            case "close" -> new NativeFunction("close", 0, (interpreter, arguments) -> {
+                close();
+                return null;
+            });
+            case "isClosed" -> new NativeFunction("isClosed", 0, (interpreter, arguments) -> closed);
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<channel>";
+    }
+}
@@ -1,14 +1,15 @@
 package com.github.elias_ka.lox;
 
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
 class LoxClass implements LoxCallable {
     private final String name;
     private final LoxClass superclass;
-    private final Map<String, LoxFunction> methods;
+    private final Map<Symbol, LoxFunction> methods;
 
-    LoxClass(String name, LoxClass superclass, Map<String, LoxFunction> methods) {
+    LoxClass(String name, LoxClass superclass, Map<Symbol, LoxFunction> methods) {
         this.name = name;
         this.superclass = superclass;
         this.methods = methods;
@@ -18,9 +19,10 @@ class LoxClass implements LoxCallable {
         return name;
     }
 
-    LoxFunction findMethod(String name) {
-        if (methods.containsKey(name)) {
-            return methods.get(name);
+    LoxFunction findMethod(Symbol name) {
+        final LoxFunction method = methods.get(name);
+        if (method != null) {
+            return method;
         }
 
         if (superclass != null) {
@@ -30,6 +32,11 @@ class LoxClass implements LoxCallable {
         return null;
     }
 
+    void shareInto(Deque<Object> pending) {
+        pending.addAll(methods.values());
+        if (superclass != null) pending.push(superclass);
+    }
+
     @Override
     public String toString() {
         return name;
@@ -37,7 +44,7 @@ class LoxClass implements LoxCallable {
 
     @Override
     public int arity() {
-        final LoxFunction initializer = findMethod("init");
+        final LoxFunction initializer = findMethod(Symbol.INIT);
         if (initializer != null) {
             return initializer.arity();
         }
@@ -48,7 +55,7 @@ class LoxClass implements LoxCallable {
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
         final LoxInstance instance = new LoxInstance(this);
-        final LoxFunction initializer = findMethod("init");
+        final LoxFunction initializer = findMethod(Symbol.INIT);
 
         if (initializer != null) {
             initializer.bind(instance).call(interpreter, arguments);
@@ -0,0 +1,112 @@
+package com.github.elias_ka.lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+
+// A file opened for reading. Iterating over it in a for-each loop yields its lines without their terminators, and
+// closes it once the end is reached.
+class LoxFileReader implements NativeObject, Interpreter.Items, AutoCloseable {
+    private final Path path;
+    private final BufferedReader reader;
+    private final OpenFiles files;
+    private boolean closed;
+
+    LoxFileReader(Path path, BufferedReader reader, OpenFiles files) {
+        this.path = path;
+        this.reader = reader;
+        this.files = files;
+        files.add(this);
+    }
+
+    String readLine() {
+        if (closed) return null;
+        try {
+            final String line = reader.readLine();
+            if (line == null) close();
+            return line;
+        } catch (IOException e) {
+            throw FileIO.error("read", path, e);
+        }
+    }
+
+    String read(int count) {
+        final StringBuilder chunk = new StringBuilder(Math.min(count, FileIO.BUFFER_SIZE));
+        if (!closed) {
+            try {
+                final char[] buffer = new char[Math.min(count, FileIO.BUFFER_SIZE)];
+                while (chunk.length() < count) {
+                    final int read = reader.read(buffer, 0, Math.min(buffer.length, count - chunk.length()));
+                    if (read < 0) {
+                        close();
+                        break;
+                    }
+                    chunk.append(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw FileIO.error("read", path, e);
+            }
+        }
+        return chunk.isEmpty() ? null : chunk.toString();
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        files.remove(this);
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw FileIO.error("close", path, e);
+        }
+    }
+
+    // Only peeks at the next char, so nothing is read ahead and readLine() and read() carry on from the same place.
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        try {
+            reader.mark(1);
+            final int next = reader.read();
+            if (next < 0) {
+                close();
+                return false;
+            }
+            reader.reset();
+            return true;
+        } catch (IOException e) {
+            throw FileIO.error("read", path, e);
+        }
+    }
+
+    @Override
+    public Object next() {
+        return readLine();
+    }
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "readLine" -> new NativeFunction("readLine", 0, (interpreter, arguments) ->
+                    interpreter.chargeString(readLine()));
+            case "read" -> new NativeFunction("read", 1, (interpreter, arguments) -> {
+                final long count = NativeFunction.integer(arguments.get(0), "Count");
+                if (count < 1 || count > Integer.MAX_VALUE) {
+                    throw new NativeError("Count must be a positive integer.");
+                }
+                return interpreter.chargeString(read((int) count));
+            });
+            case "close" -> new NativeFunction("close", 0, (interpreter, arguments) -> {
+                close();
+                return null;
+            });
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<file reader %s>".formatted(path);
+    }
+}
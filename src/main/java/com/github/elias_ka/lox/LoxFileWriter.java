@@ -0,0 +1,80 @@
+package com.github.elias_ka.lox;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+
+class LoxFileWriter implements NativeObject, AutoCloseable {
+    private final Path path;
+    private final Writer writer;
+    private final OpenFiles files;
+    private boolean closed;
+
+    LoxFileWriter(Path path, Writer writer, OpenFiles files) {
+        this.path = path;
+        this.writer = writer;
+        this.files = files;
+        files.add(this);
+    }
+
+    void write(Object value, boolean newline) {
+        if (closed) {
+            throw new NativeError("Cannot write to a closed file.");
+        }
+        try {
+            writer.write(Interpreter.stringify(value));
+            if (newline) writer.write('\n');
+        } catch (IOException e) {
+            throw FileIO.error("write", path, e);
+        }
+    }
+
+    void flush() {
+        if (closed) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw FileIO.error("write", path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        files.remove(this);
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw FileIO.error("write", path, e);
+        }
+    }
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "write" -> new NativeFunction("write", 1, (interpreter, arguments) -> {
+                write(arguments.get(0), false);
+                return null;
+            });
+            case "writeLine" -> new NativeFunction("writeLine", 1, (interpreter, arguments) -> {
+                write(arguments.get(0), true);
+                return null;
+            });
+            case "flush" -> new NativeFunction("flush", 0, (interpreter, arguments) -> {
+                flush();
+                return null;
+            });
+            case "close" -> new NativeFunction("close", 0, (interpreter, arguments) -> {
+                close();
+                return null;
+            });
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<file writer %s>".formatted(path);
+    }
+}
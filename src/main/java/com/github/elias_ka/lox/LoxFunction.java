@@ -14,11 +14,20 @@ public class LoxFunction implements LoxCallable {
     }
 
     LoxFunction bind(LoxInstance instance) {
+        if (Metrics.ENABLED) Metrics.boundMethodsCreated.increment();
         final Environment environment = new Environment(closure);
-        environment.define("this", instance);
+        environment.define(Symbol.THIS, instance);
         return new LoxFunction(declaration, environment, isInitializer);
     }
 
+    Environment getClosure() {
+        return closure;
+    }
+
+    Token getNameToken() {
+        return declaration.name;
+    }
+
     @Override
     public int arity() {
         return declaration.params.size();
@@ -26,18 +35,45 @@ public class LoxFunction implements LoxCallable {
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
+        final Profiler profiler = interpreter.getProfiler();
+        final boolean recording = Events.ENABLED && FunctionCallEvent.enabled;
+        if (profiler == null && !recording) {
+            return invoke(interpreter, arguments);
+        }
+
+        return trace(interpreter, arguments, profiler, recording);
+    }
+
+    private Object trace(Interpreter interpreter, List<Object> arguments, Profiler profiler, boolean recording) {
+        if (profiler != null) profiler.enter(declaration);
+
+        try {
+            if (recording) {
+                return FunctionCallEvent.record(declaration, () -> invoke(interpreter, arguments));
+            }
+            return invoke(interpreter, arguments);
+        } finally {
+            if (profiler != null) profiler.exit();
+        }
+    }
+
+    private Object invoke(Interpreter interpreter, List<Object> arguments) {
         final Environment environment = new Environment(closure);
 
         declaration.params.forEach(param -> {
             final int paramIndex = declaration.params.indexOf(param);
-            environment.define(param.lexeme(), arguments.get(paramIndex));
+            environment.define(param.symbol(), arguments.get(paramIndex));
         });
 
+        if (declaration.isGenerator) {
+            return new LoxGenerator(declaration, environment);
+        }
+
         try {
             interpreter.executeBlock(declaration.body, environment);
         } catch (Return ret) {
             if (isInitializer) {
-                return closure.getAt(0, "this");
+                return closure.getAt(0, Symbol.THIS);
             }
             return ret.getValue();
         }
@@ -45,6 +81,10 @@ public class LoxFunction implements LoxCallable {
         return null;
     }
 
+    String getName() {
+        return declaration.name.lexeme();
+    }
+
     @Override
     public String toString() {
         return "<fn %s>".formatted(declaration.name.lexeme());
@@ -0,0 +1,106 @@
+package com.github.elias_ka.lox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+// The result of calling a generator function. Nothing in the body runs until the first value is asked for; the body
+// then runs up to its next yield and is suspended there until the value after it is asked for.
+//
+// Suspending works without a thread of its own: the statements that can contain a yield (blocks, ifs and loops) are
+// run by Interpreter.resume() from an explicit stack of frames instead of through Java recursion, so the state left
+// at a yield is just that stack. Everything else, expressions included, runs as usual.
+//
+// Scripts see hasNext() and next(), which returns nil once the generator is exhausted. for-each loops use the same.
+class LoxGenerator implements NativeObject {
+    // A position in a list of statements.
+    static final class Block {
+        final List<Stmt> statements;
+        final Environment environment;
+        int index;
+
+        Block(List<Stmt> statements, Environment environment) {
+            this.statements = statements;
+            this.environment = environment;
+        }
+    }
+
+    record Loop(Stmt.While loop, Environment environment) {
+    }
+
+    record Each(Stmt.ForEach loop, Interpreter.Items items, Environment environment) {
+    }
+
+    private final Stmt.Function declaration;
+    final Deque<Object> frames = new ArrayDeque<>();
+    private boolean running;
+    private boolean shared;
+    private boolean hasValue;
+    private Object value;
+
+    LoxGenerator(Stmt.Function declaration, Environment environment) {
+        this.declaration = declaration;
+        frames.push(new Block(declaration.body, environment));
+    }
+
+    boolean hasNext(Interpreter interpreter) {
+        if (hasValue) return true;
+        if (frames.isEmpty()) return false;
+        if (running) {
+            throw new NativeError("Generator is already running.");
+        }
+
+        running = true;
+        try {
+            final Object result = interpreter.resume(this);
+            if (result != Interpreter.FINISHED) {
+                value = result;
+                hasValue = true;
+            }
+        } catch (RuntimeException e) {
+            frames.clear();
+            throw e;
+        } finally {
+            running = false;
+        }
+        return hasValue;
+    }
+
+    // The environments of the suspended frames, and the value waiting to be returned, are what the generator holds.
+    void shareInto(Deque<Object> pending) {
+        if (shared) return;
+        shared = true;
+        for (final Object frame : frames) {
+            switch (frame) {
+                case Block block -> pending.push(block.environment);
+                case Loop loop -> pending.push(loop.environment());
+                case Each each -> pending.push(each.environment());
+                default -> {
+                }
+            }
+        }
+        if (value != null) pending.push(value);
+    }
+
+    Object next(Interpreter interpreter) {
+        if (!hasNext(interpreter)) return null;
+        final Object result = value;
+        value = null;
+        hasValue = false;
+        return result;
+    }
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "hasNext" -> new NativeFunction("hasNext", 0, (interpreter, arguments) -> hasNext(interpreter));
+            case "next" -> new NativeFunction("next", 0, (interpreter, arguments) -> next(interpreter));
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<generator %s>".formatted(declaration.name.lexeme());
+    }
+}
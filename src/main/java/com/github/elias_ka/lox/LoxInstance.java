@@ -1,23 +1,31 @@
 package com.github.elias_ka.lox;
 
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LoxInstance {
     private final LoxClass klass;
-    private final Map<String, Object> fields = new HashMap<>();
+    // Shared with other threads the same way as an Environment's values, and holds nil the same way too.
+    private Map<Symbol, Object> fields = new HashMap<>();
+    private boolean shared;
 
     LoxInstance(LoxClass klass) {
         this.klass = klass;
+        if (Metrics.ENABLED) Metrics.instancesCreated.increment();
     }
 
     public Object get(Token name) {
-        if (fields.containsKey(name.lexeme())) {
-            return fields.get(name.lexeme());
+        final Object value = fields.get(name.symbol());
+        if (value != null) {
+            if (Metrics.ENABLED) Metrics.fieldLookups.increment();
+            return Environment.unwrap(value);
         }
 
-        final LoxFunction method = klass.findMethod(name.lexeme());
+        final LoxFunction method = klass.findMethod(name.symbol());
         if (method != null) {
+            if (Metrics.ENABLED) Metrics.methodLookups.increment();
             return method.bind(this);
         }
 
@@ -25,7 +33,16 @@ public class LoxInstance {
     }
 
     public void set(Token name, Object value) {
-        fields.put(name.lexeme(), value);
+        if (shared) Environment.share(value);
+        fields.put(name.symbol(), Environment.wrap(value));
+    }
+
+    void shareInto(Deque<Object> pending) {
+        if (shared) return;
+        fields = new ConcurrentHashMap<>(fields);
+        shared = true;
+        pending.addAll(fields.values());
+        pending.push(klass);
     }
 
     @Override
@@ -0,0 +1,222 @@
+package com.github.elias_ka.lox;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+// A hash map from any Lox value to any Lox value. Strings, numbers and booleans are compared by value like '==' does,
+// everything else by identity.
+//
+// Entries live in parallel arrays using open addressing with linear probing, so there is no node object per entry.
+// Each slot also keeps the key's hash, letting a probe skip most mismatches without calling equals(), and string
+// keys, the common case, are compared directly. Removal shifts the following entries back instead of leaving
+// tombstones.
+class LoxMap implements NativeObject {
+    // Keys are never null in the table; nil is stored as this, and a null key marks an empty slot.
+    private static final Object NIL = new Object();
+
+    private Object[] keys = new Object[8];
+    private Object[] values = new Object[8];
+    private int[] hashes = new int[8];
+    private int size;
+    // Set once the map is reachable from several threads; entries stored from then on are shared too.
+    private boolean shared;
+
+    int size() {
+        return size;
+    }
+
+    Object get(Object key) {
+        final int slot = find(key(key));
+        return slot < 0 ? null : values[slot];
+    }
+
+    boolean has(Object key) {
+        return find(key(key)) >= 0;
+    }
+
+    // Growing the table is charged to the interpreter's memory budget.
+    void set(Interpreter interpreter, Object key, Object value) {
+        if (shared) {
+            Environment.share(key);
+            Environment.share(value);
+        }
+        final Object k = key(key);
+        final int hash = hash(k);
+        final int mask = keys.length - 1;
+
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && matches(keys[slot], k)) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = k;
+        values[slot] = value;
+        hashes[slot] = hash;
+        if (++size * 3 >= keys.length * 2) {
+            interpreter.charge(20L * keys.length * 2);
+            resize();
+        }
+    }
+
+    boolean delete(Object key) {
+        int slot = find(key(key));
+        if (slot < 0) {
+            return false;
+        }
+
+        // Shift back every following entry of the probe run that would otherwise become unreachable.
+        final int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (keys[next] != null) {
+            final int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                hashes[slot] = hashes[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[slot] = null;
+        values[slot] = null;
+        size--;
+        return true;
+    }
+
+    void shareInto(Deque<Object> pending) {
+        if (shared) return;
+        shared = true;
+        for (var i = 0; i < keys.length; i++) {
+            if (keys[i] == null) continue;
+            pending.push(keys[i]);
+            if (values[i] != null) pending.push(values[i]);
+        }
+    }
+
+    LoxArray keys(Interpreter interpreter) {
+        interpreter.charge(Interpreter.INSTANCE_BYTES + 8L * size);
+        final LoxArray array = new LoxArray(size);
+        for (final Object key : keys) {
+            if (key != null) array.push(interpreter, key == NIL ? null : key);
+        }
+        return array;
+    }
+
+    LoxArray values(Interpreter interpreter) {
+        interpreter.charge(Interpreter.INSTANCE_BYTES + 8L * size);
+        final LoxArray array = new LoxArray(size);
+        for (var i = 0; i < keys.length; i++) {
+            if (keys[i] != null) array.push(interpreter, values[i]);
+        }
+        return array;
+    }
+
+    // Strings are looked up by their contents, so concatenated ones are flattened first.
+    private static Object key(Object key) {
+        return key == null ? NIL : Rope.flatten(key);
+    }
+
+    private int find(Object key) {
+        final int hash = hash(key);
+        final int mask = keys.length - 1;
+
+        int slot = hash & mask;
+        if (key instanceof String string) {
+            for (Object candidate = keys[slot]; candidate != null; candidate = keys[slot]) {
+                if (candidate == string || (hashes[slot] == hash && string.equals(candidate))) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        for (Object candidate = keys[slot]; candidate != null; candidate = keys[slot]) {
+            if (hashes[slot] == hash && matches(candidate, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean matches(Object candidate, Object key) {
+        return candidate == key || (isValueKey(key) && key.equals(candidate));
+    }
+
+    private static boolean isValueKey(Object key) {
+        return key instanceof String || key instanceof Double || key instanceof Boolean;
+    }
+
+    private static int hash(Object key) {
+        final int h = isValueKey(key) ? key.hashCode() : System.identityHashCode(key);
+        // Spread the bits, since the slot is taken from the low ones.
+        return (h ^ (h >>> 16)) * 0x9E3779B9;
+    }
+
+    private void resize() {
+        final Object[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int[] oldHashes = hashes;
+
+        keys = new Object[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        final int mask = keys.length - 1;
+
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+
+            int slot = oldHashes[i] & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "get" -> new NativeFunction("get", 1, (interpreter, arguments) -> get(arguments.get(0)));
+            case "set" -> new NativeFunction("set", 2, (interpreter, arguments) -> {
+                set(interpreter, arguments.get(0), arguments.get(1));
+                return null;
+            });
+            case "has" -> new NativeFunction("has", 1, (interpreter, arguments) -> has(arguments.get(0)));
+            case "delete" -> new NativeFunction("delete", 1, (interpreter, arguments) -> delete(arguments.get(0)));
+            case "size" -> new NativeFunction("size", 0, (interpreter, arguments) -> (double) size);
+            case "keys" -> new NativeFunction("keys", 0, (interpreter, arguments) -> keys(interpreter));
+            case "values" -> new NativeFunction("values", 0, (interpreter, arguments) -> values(interpreter));
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return toString(Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    String toString(Set<Object> printing) {
+        if (!printing.add(this)) return "{...}";
+        final StringBuilder builder = new StringBuilder("{");
+        for (var i = 0; i < keys.length; i++) {
+            if (keys[i] == null) continue;
+            if (builder.length() > 1) builder.append(", ");
+            builder.append(Interpreter.stringify(keys[i] == NIL ? null : keys[i], printing))
+                    .append(": ")
+                    .append(Interpreter.stringify(values[i], printing));
+        }
+        printing.remove(this);
+        return builder.append("}").toString();
+    }
+}
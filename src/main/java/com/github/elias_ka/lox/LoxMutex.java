@@ -0,0 +1,46 @@
+package com.github.elias_ka.lox;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A ReentrantLock rather than a monitor, so that a task blocked on it unmounts its virtual thread.
+class LoxMutex implements NativeObject {
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Override
+    public Object get(Token name) {
+        return switch (name.lexeme()) {
+            case "lock" -> new NativeFunction("lock", 0, (interpreter, arguments) -> {
+                return interpreter.blocking(deadline -> {
+                    try {
+                        if (deadline == 0) {
+                            lock.lockInterruptibly();
+                        } else {
+                            while (!lock.tryLock(ExecutionBudget.nanosLeft(deadline), TimeUnit.NANOSECONDS)) {
+                                // Checks the deadline again.
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new NativeError("Interrupted while waiting for a mutex.");
+                    }
+                    return null;
+                });
+            });
+            case "tryLock" -> new NativeFunction("tryLock", 0, (interpreter, arguments) -> lock.tryLock());
+            case "unlock" -> new NativeFunction("unlock", 0, (interpreter, arguments) -> {
+                if (!lock.isHeldByCurrentThread()) {
+                    throw new NativeError("Mutex is not locked by this task.");
+                }
+                lock.unlock();
+                return null;
+            });
+            default -> throw NativeObject.undefinedProperty(name);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<mutex>";
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.elias_ka.lox;
+
+import java.time.Duration;
+import java.util.List;
+
+// A function running on its own virtual thread. The function gets a forked interpreter that shares globals and
+// output with the spawning one. Every task belongs to its execution's TaskGroup, which waits for it before the
+// execution ends.
+class LoxTask {
+    private final Thread thread;
+    private final Timeslice timeslice;
+    private final Token origin;
+    private Object result;
+    private RuntimeError error;
+    private Throwable failure;
+    private volatile boolean awaited;
+    private volatile boolean cancelled;
+
+    private LoxTask(Interpreter interpreter, LoxCallable function) {
+        final Interpreter forked = interpreter.fork();
+        timeslice = forked.getTimeslice();
+        origin = function instanceof LoxFunction f
+                ? f.getNameToken()
+                : new Token(TokenType.IDENTIFIER, function.toString(), null, 0);
+        thread = Thread.ofVirtual().name("lox-task").unstarted(() -> {
+            if (timeslice != null) timeslice.begin();
+            try {
+                result = function.call(forked, List.of());
+            } catch (RuntimeError e) {
+                error = e;
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                if (timeslice != null) timeslice.release();
+            }
+        });
+    }
+
+    static LoxTask spawn(Interpreter interpreter, LoxCallable function) {
+        if (function.arity() != 0) {
+            throw new NativeError("Can only spawn functions that take no arguments.");
+        }
+        final LoxTask task = new LoxTask(interpreter, function);
+        interpreter.getTasks().add(task);
+        Environment.share(function);
+        final Timeslice timeslice = task.timeslice;
+        if (timeslice != null) timeslice.enqueue(task.thread);
+        task.thread.start();
+        return task;
+    }
+
+    // The task's runtime error is rethrown as is, so it is reported with the line it happened on.
+    Object await(Interpreter interpreter) {
+        awaited = true;
+        interpreter.blocking(deadline -> {
+            try {
+                if (deadline == 0) {
+                    join();
+                } else {
+                    while (!thread.join(Duration.ofNanos(ExecutionBudget.nanosLeft(deadline)))) {
+                        // Checks the deadline again.
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NativeError("Interrupted while awaiting task.");
+            }
+            return null;
+        });
+        if (error != null) throw error;
+        if (failure != null) throw new NativeError("Task failed: %s".formatted(failure));
+        return result;
+    }
+
+    void join() throws InterruptedException {
+        thread.join();
+    }
+
+    // Interrupts whatever the task is waiting on; the TaskGroup's budget stops it if it's running.
+    void cancel() {
+        cancelled = true;
+        thread.interrupt();
+    }
+
+    // Once the task has finished, the error it failed with if nothing awaited it and it wasn't cancelled.
+    RuntimeError unobservedError() {
+        if (awaited || cancelled) return null;
+        if (error != null) return error;
+        if (failure != null) return new RuntimeError(origin, "Task failed: %s".formatted(failure));
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "<task>";
+    }
+}
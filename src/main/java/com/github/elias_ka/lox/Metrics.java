@@ -0,0 +1,115 @@
+package com.github.elias_ka.lox;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide interpreter counters, published as the MBean com.github.elias_ka.lox:type=Metrics.
+//
+// Collection is switched on with -Djlox.metrics=true. Every update site is guarded by ENABLED, which is a static
+// final, so when metrics are off the JIT folds the guard away and the counters cost nothing.
+final class Metrics implements MetricsMXBean {
+    static final boolean ENABLED = Boolean.getBoolean("jlox.metrics");
+
+    static final LongAdder environmentsAllocated = new LongAdder();
+    static final LongAdder instancesCreated = new LongAdder();
+    static final LongAdder fieldLookups = new LongAdder();
+    static final LongAdder methodLookups = new LongAdder();
+    static final LongAdder boundMethodsCreated = new LongAdder();
+    static final LongAdder functionCalls = new LongAdder();
+    static final LongAdder classCalls = new LongAdder();
+    static final LongAdder nativeCalls = new LongAdder();
+    static final LongAdder runtimeErrors = new LongAdder();
+    static final LongAdder statementsExecuted = new LongAdder();
+
+    static {
+        if (ENABLED) {
+            register(new Metrics(), "type=Metrics");
+        }
+    }
+
+    private Metrics() {
+    }
+
+    static void register(Object mbean, String properties) {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(mbean, new ObjectName("com.github.elias_ka.lox:" + properties));
+        } catch (JMException e) {
+            System.err.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    static void countCall(LoxCallable callee) {
+        switch (callee) {
+            case LoxFunction ignored -> functionCalls.increment();
+            case LoxClass ignored -> classCalls.increment();
+            default -> nativeCalls.increment();
+        }
+    }
+
+    @Override
+    public long getEnvironmentsAllocated() {
+        return environmentsAllocated.sum();
+    }
+
+    @Override
+    public long getInstancesCreated() {
+        return instancesCreated.sum();
+    }
+
+    @Override
+    public long getFieldLookups() {
+        return fieldLookups.sum();
+    }
+
+    @Override
+    public long getMethodLookups() {
+        return methodLookups.sum();
+    }
+
+    @Override
+    public long getBoundMethodsCreated() {
+        return boundMethodsCreated.sum();
+    }
+
+    @Override
+    public long getFunctionCalls() {
+        return functionCalls.sum();
+    }
+
+    @Override
+    public long getClassCalls() {
+        return classCalls.sum();
+    }
+
+    @Override
+    public long getNativeCalls() {
+        return nativeCalls.sum();
+    }
+
+    @Override
+    public long getRuntimeErrors() {
+        return runtimeErrors.sum();
+    }
+
+    @Override
+    public long getStatementsExecuted() {
+        return statementsExecuted.sum();
+    }
+
+    @Override
+    public void reset() {
+        environmentsAllocated.reset();
+        instancesCreated.reset();
+        fieldLookups.reset();
+        methodLookups.reset();
+        boundMethodsCreated.reset();
+        functionCalls.reset();
+        classCalls.reset();
+        nativeCalls.reset();
+        runtimeErrors.reset();
+        statementsExecuted.reset();
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.elias_ka.lox;
+
+public interface MetricsMXBean {
+    long getEnvironmentsAllocated();
+
+    long getInstancesCreated();
+
+    long getFieldLookups();
+
+    long getMethodLookups();
+
+    long getBoundMethodsCreated();
+
+    long getFunctionCalls();
+
+    long getClassCalls();
+
+    long getNativeCalls();
+
+    long getRuntimeErrors();
+
+    long getStatementsExecuted();
+
+    void reset();
+}
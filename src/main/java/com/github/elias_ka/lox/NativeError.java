@@ -0,0 +1,9 @@
+package com.github.elias_ka.lox;
+
+// Thrown by native functions, which don't know where they were called from. The interpreter turns it into a
+// RuntimeError at the call site.
+public class NativeError extends RuntimeException {
+    public NativeError(String message) {
+        super(message);
+    }
+}
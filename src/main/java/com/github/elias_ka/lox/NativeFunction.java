@@ -0,0 +1,60 @@
+package com.github.elias_ka.lox;
+
+import java.util.List;
+
+class NativeFunction implements LoxCallable {
+    interface Body {
+        Object call(Interpreter interpreter, List<Object> arguments);
+    }
+
+    private final String name;
+    private final int arity;
+    private final Body body;
+
+    NativeFunction(String name, int arity, Body body) {
+        this.name = name;
+        this.arity = arity;
+        this.body = body;
+    }
+
+    static double number(Object value, String what) {
+        if (value instanceof Double number) {
+            return number;
+        }
+        throw new NativeError("%s must be a number.".formatted(what));
+    }
+
+    static long integer(Object value, String what) {
+        final double number = number(value, what);
+        if (number != Math.rint(number) || Double.isInfinite(number)) {
+            throw new NativeError("%s must be an integer.".formatted(what));
+        }
+        return (long) number;
+    }
+
+    static LoxCallable callable(Object value, String what) {
+        if (value instanceof LoxCallable callable) {
+            return callable;
+        }
+        throw new NativeError("%s must be a function.".formatted(what));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return body.call(interpreter, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "<native fn>";
+    }
+}
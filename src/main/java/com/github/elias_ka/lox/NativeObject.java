@@ -0,0 +1,15 @@
+package com.github.elias_ka.lox;
+
+// A value implemented in Java whose properties, usually methods, can be read with the '.' syntax.
+interface NativeObject {
+    Object get(Token name);
+
+    // Reads a property for a '.' expression, which an implementation can use to cache its lookup.
+    default Object get(Expr.Get expr) {
+        return get(expr.name);
+    }
+
+    static RuntimeError undefinedProperty(Token name) {
+        return new RuntimeError(name, "Undefined property '%s'.".formatted(name.lexeme()));
+    }
+}
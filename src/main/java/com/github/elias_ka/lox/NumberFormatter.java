@@ -0,0 +1,98 @@
+package com.github.elias_ka.lox;
+
+// Formats numbers the way Lox prints them: Double.toString() without a trailing ".0". The common cases are written
+// straight into a StringBuilder without creating intermediate strings:
+//
+//  - Integral values below 10^7, which are printed as plain integers.
+//  - Short decimals from 10^-3 up to 10^7, which Double.toString() prints in plain decimal notation with the fewest
+//    digits that parse back to the same double. The digits are found by trying 1, 2, ... decimal places, up to
+//    MAX_PLACES, and keeping the first rounding that converts back exactly. The check is exact: both operands of the
+//    division are exactly representable and division is correctly rounded.
+//
+// Everything else (full-precision results such as 0.1 + 0.2, scientific notation, NaN, infinities) goes through
+// Double.toString(), which is faster than trying every number of places for them.
+final class NumberFormatter {
+    // Longer decimals are left to Double.toString(), which formats them faster than trying each number of places.
+    private static final int MAX_PLACES = 4;
+    private static final double[] POWERS_OF_TEN = new double[MAX_PLACES + 1];
+    private static final long[] LONG_POWERS_OF_TEN = new long[MAX_PLACES + 1];
+
+    static {
+        double power = 1;
+        for (var i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+        long longPower = 1;
+        for (var i = 0; i < LONG_POWERS_OF_TEN.length; i++) {
+            LONG_POWERS_OF_TEN[i] = longPower;
+            longPower *= 10;
+        }
+    }
+
+    // Doubles can hold every integer up to this exactly.
+    private static final long MAX_EXACT = 1L << 53;
+
+    private NumberFormatter() {
+    }
+
+    static String format(double value) {
+        final StringBuilder builder = new StringBuilder(24);
+        append(builder, value);
+        return builder.toString();
+    }
+
+    static void append(StringBuilder builder, double value) {
+        final double magnitude = Math.abs(value);
+        if (magnitude < 1e7 && value == (long) value) {
+            if (value == 0 && Double.doubleToRawLongBits(value) != 0) {
+                builder.append("-0");
+            } else {
+                builder.append((long) value);
+            }
+            return;
+        }
+
+        if (magnitude >= 1e-3 && magnitude < 1e7 && appendDecimal(builder, value, magnitude)) {
+            return;
+        }
+
+        final String text = Double.toString(value);
+        if (text.endsWith(".0")) {
+            builder.append(text, 0, text.length() - 2);
+        } else {
+            builder.append(text);
+        }
+    }
+
+    private static boolean appendDecimal(StringBuilder builder, double value, double magnitude) {
+        // A value with fewer places passes this check too, so one rounding rules out every short decimal at once.
+        if (Math.round(magnitude * POWERS_OF_TEN[MAX_PLACES]) / POWERS_OF_TEN[MAX_PLACES] != magnitude) {
+            return false;
+        }
+
+        for (var places = 1; places < POWERS_OF_TEN.length; places++) {
+            final double scaled = magnitude * POWERS_OF_TEN[places];
+            if (scaled >= MAX_EXACT) {
+                return false;
+            }
+
+            final long digits = Math.round(scaled);
+            if (digits / POWERS_OF_TEN[places] != magnitude) {
+                continue;
+            }
+
+            if (value < 0) {
+                builder.append('-');
+            }
+            builder.append(digits / LONG_POWERS_OF_TEN[places]).append('.');
+            final long fraction = digits % LONG_POWERS_OF_TEN[places];
+            for (var i = places - 1; i > 0 && fraction < LONG_POWERS_OF_TEN[i]; i--) {
+                builder.append('0');
+            }
+            builder.append(fraction);
+            return true;
+        }
+        return false;
+    }
+}
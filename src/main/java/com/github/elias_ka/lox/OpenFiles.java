@@ -0,0 +1,29 @@
+package com.github.elias_ka.lox;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The files an execution, or any of its tasks, has open. Whatever the script leaves open is flushed and closed when
+// the execution ends, so that neither handles nor buffered output are lost.
+final class OpenFiles {
+    private final Set<AutoCloseable> files = ConcurrentHashMap.newKeySet();
+
+    void add(AutoCloseable file) {
+        files.add(file);
+    }
+
+    void remove(AutoCloseable file) {
+        files.remove(file);
+    }
+
+    // Nothing is left to report a failure to at this point, so it is ignored like a failed close() in a finally block.
+    void closeAll() {
+        for (final AutoCloseable file : files) {
+            try {
+                file.close();
+            } catch (Exception ignored) {
+            }
+        }
+        files.clear();
+    }
+}
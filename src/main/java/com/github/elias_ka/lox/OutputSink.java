@@ -0,0 +1,82 @@
+package com.github.elias_ka.lox;
+
+import java.io.PrintStream;
+
+// Where print statements write. Lines are collected in a buffer and handed to the underlying stream in batches,
+// avoiding PrintStream's locking and flushing on every line. Only whole lines are handed over, so output from
+// executions sharing a stream never interleaves mid-line.
+//
+// The buffer is only locked once the interpreter has been forked for a task; until then a single thread writes to it.
+public final class OutputSink {
+    private static final int CAPACITY = 8192;
+
+    private final PrintStream out;
+    private final boolean lineBuffered;
+    private final StringBuilder buffer = new StringBuilder(CAPACITY + 256);
+    private volatile boolean shared;
+
+    public OutputSink(PrintStream out, boolean lineBuffered) {
+        this.out = out;
+        this.lineBuffered = lineBuffered;
+    }
+
+    void share() {
+        shared = true;
+    }
+
+    void println(String text) {
+        if (shared) {
+            synchronized (this) {
+                appendLine(text);
+            }
+        } else {
+            appendLine(text);
+        }
+    }
+
+    // Formats the number straight into the buffer.
+    void println(double number) {
+        if (shared) {
+            synchronized (this) {
+                appendLine(number);
+            }
+        } else {
+            appendLine(number);
+        }
+    }
+
+    private void appendLine(String text) {
+        buffer.append(text);
+        endLine();
+    }
+
+    private void appendLine(double number) {
+        NumberFormatter.append(buffer, number);
+        endLine();
+    }
+
+    private void endLine() {
+        buffer.append(System.lineSeparator());
+        if (lineBuffered || buffer.length() >= CAPACITY) {
+            drain();
+        }
+    }
+
+    public void flush() {
+        if (shared) {
+            synchronized (this) {
+                drain();
+            }
+        } else {
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (!buffer.isEmpty()) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+}
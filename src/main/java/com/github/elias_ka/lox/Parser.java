@@ -8,10 +8,14 @@ public class Parser {
     }
 
     private final List<Token> tokens;
+    private final ErrorReporter reporter;
     private int current = 0;
+    // Whether the function being parsed has a yield statement, which makes it a generator.
+    private boolean sawYield = false;
 
-    public Parser(List<Token> tokens) {
+    public Parser(List<Token> tokens, ErrorReporter reporter) {
         this.tokens = tokens;
+        this.reporter = reporter;
     }
 
     public List<Stmt> parse() {
@@ -28,10 +32,11 @@ public class Parser {
     }
 
     private Stmt declaration() {
+        final int line = peek().line();
         try {
-            if (match(TokenType.CLASS)) return classDeclaration();
-            if (match(TokenType.FUN)) return function("function");
-            if (match(TokenType.VAR)) return varDeclaration();
+            if (match(TokenType.CLASS)) return at(line, classDeclaration());
+            if (match(TokenType.FUN)) return at(line, function("function"));
+            if (match(TokenType.VAR)) return at(line, varDeclaration());
             return statement();
         } catch (ParseError error) {
             synchronize();
@@ -60,19 +65,33 @@ public class Parser {
     }
 
     private Stmt statement() {
-        if (match(TokenType.FOR)) return forStatement();
-        if (match(TokenType.IF)) return ifStatement();
-        if (match(TokenType.PRINT)) return printStatement();
-        if (match(TokenType.RETURN)) return returnStatement();
-        if (match(TokenType.WHILE)) return whileStatement();
-        if (match(TokenType.LEFT_BRACE)) return new Stmt.Block(block());
+        final int line = peek().line();
+        if (match(TokenType.FOR)) return at(line, forStatement());
+        if (match(TokenType.IF)) return at(line, ifStatement());
+        if (match(TokenType.PRINT)) return at(line, printStatement());
+        if (match(TokenType.RETURN)) return at(line, returnStatement());
+        if (match(TokenType.WHILE)) return at(line, whileStatement());
+        if (match(TokenType.YIELD)) return at(line, yieldStatement());
+        if (match(TokenType.LEFT_BRACE)) return at(line, new Stmt.Block(block()));
 
-        return expressionStatement();
+        return at(line, expressionStatement());
+    }
+
+    private static Stmt at(int line, Stmt stmt) {
+        stmt.line = line;
+        return stmt;
     }
 
     private Stmt forStatement() {
+        final Token keyword = previous();
         consume(TokenType.LEFT_PAREN, "Expect '(' after 'for'.");
 
+        // 'in' is only special here, so it can still be used as a name elsewhere.
+        if (check(TokenType.VAR) && peekAhead(1).type() == TokenType.IDENTIFIER
+                && peekAhead(2).type() == TokenType.IDENTIFIER && peekAhead(2).lexeme().equals("in")) {
+            return forEachStatement(keyword);
+        }
+
         Stmt initializer;
         if (match(TokenType.SEMICOLON)) {
             initializer = null;
@@ -94,23 +113,36 @@ public class Parser {
         }
         consume(TokenType.RIGHT_PAREN, "Expect ')' after for clauses.");
 
+        // The statements the loop is desugared into are all on the line of the 'for'.
         Stmt body = statement();
         if (increment != null) {
-            body = new Stmt.Block(List.of(body, new Stmt.Expression(increment)));
+            body = at(keyword.line(),
+                    new Stmt.Block(List.of(body, at(keyword.line(), new Stmt.Expression(increment)))));
         }
 
         if (condition == null) {
             condition = new Expr.Literal(true);
         }
-        body = new Stmt.While(condition, body);
+        body = at(keyword.line(), new Stmt.While(keyword, condition, body));
 
         if (initializer != null) {
-            body = new Stmt.Block(List.of(initializer, body));
+            body = new Stmt.Block(List.of(at(keyword.line(), initializer), body));
         }
 
         return body;
     }
 
+    private Stmt forEachStatement(Token keyword) {
+        consume(TokenType.VAR, "Expect 'var' in for-each loop.");
+        final Token name = consume(TokenType.IDENTIFIER, "Expect variable name.");
+        advance();
+        final Expr iterable = expression();
+        consume(TokenType.RIGHT_PAREN, "Expect ')' after for-each clause.");
+        final Stmt body = statement();
+
+        return new Stmt.ForEach(keyword, name, iterable, body);
+    }
+
     private Stmt ifStatement() {
         consume(TokenType.LEFT_PAREN, "Expect '(' after 'if'.");
         final Expr condition = expression();
@@ -142,13 +174,22 @@ public class Parser {
         return new Stmt.Var(name, initializer);
     }
 
+    private Stmt yieldStatement() {
+        final Token keyword = previous();
+        final Expr value = !check(TokenType.SEMICOLON) ? expression() : null;
+        consume(TokenType.SEMICOLON, "Expect ';' after yield value.");
+        sawYield = true;
+        return new Stmt.Yield(keyword, value);
+    }
+
     private Stmt whileStatement() {
+        final Token keyword = previous();
         consume(TokenType.LEFT_PAREN, "Expect '(' after 'while'.");
         final Expr condition = expression();
         consume(TokenType.RIGHT_PAREN, "Expect ')' after condition.");
         final Stmt body = statement();
 
-        return new Stmt.While(condition, body);
+        return new Stmt.While(keyword, condition, body);
     }
 
     private Stmt expressionStatement() {
@@ -174,8 +215,13 @@ public class Parser {
         consume(TokenType.RIGHT_PAREN, "Expect ')' after parameters.");
         consume(TokenType.LEFT_BRACE, "Expect '{' before %s body.".formatted(kind));
 
+        final boolean enclosingSawYield = sawYield;
+        sawYield = false;
         final List<Stmt> body = block();
-        return new Stmt.Function(name, parameters, body);
+        final boolean isGenerator = sawYield;
+        sawYield = enclosingSawYield;
+
+        return new Stmt.Function(name, parameters, body, isGenerator);
     }
 
     private List<Stmt> block() {
@@ -197,9 +243,11 @@ public class Parser {
             final Expr value = assignment();
 
             if (expr instanceof Expr.Variable v) {
-                return new Expr.Assign(v.name, value);
+                return assign(v, value);
             } else if (expr instanceof Expr.Get get) {
                 return new Expr.Set(get.object, get.name, value);
+            } else if (expr instanceof Expr.Index index) {
+                return new Expr.IndexSet(index.object, index.bracket, index.index, value);
             }
 
             // We report an error if the left-hand side isn’t a valid assignment target, but we don’t throw it
@@ -210,6 +258,21 @@ public class Parser {
         return expr;
     }
 
+    // 'x = x + y' becomes an update of x, which finds the variable once for both reading and writing it.
+    private static Expr assign(Expr.Variable target, Expr value) {
+        if (value instanceof Expr.Binary binary && binary.left instanceof Expr.Variable variable
+                && variable.name.lexeme().equals(target.name.lexeme())) {
+            switch (binary.operator.type()) {
+                case TokenType.PLUS, TokenType.MINUS, TokenType.STAR, TokenType.SLASH -> {
+                    return new Expr.Update(variable, binary.operator, binary.right);
+                }
+                default -> {
+                }
+            }
+        }
+        return new Expr.Assign(target.name, value);
+    }
+
     private Expr or() {
         Expr expr = and();
 
@@ -252,7 +315,13 @@ public class Parser {
         while (match(TokenType.GREATER, TokenType.GREATER_EQUAL, TokenType.LESS, TokenType.LESS_EQUAL)) {
             Token operator = previous();
             Expr right = term();
-            expr = new Expr.Binary(expr, operator, right);
+            // Loop conditions like 'i < n' and 'i < 10' skip evaluating their operands through the visitor.
+            if (expr instanceof Expr.Variable variable
+                    && (right instanceof Expr.Variable || right instanceof Expr.Literal)) {
+                expr = new Expr.Compare(variable, operator, right);
+            } else {
+                expr = new Expr.Binary(expr, operator, right);
+            }
         }
 
         return expr;
@@ -317,6 +386,11 @@ public class Parser {
             } else if (match(TokenType.DOT)) {
                 final Token name = consume(TokenType.IDENTIFIER, "Expect property name after '.'.");
                 expr = new Expr.Get(expr, name);
+            } else if (match(TokenType.LEFT_BRACKET)) {
+                final Token bracket = previous();
+                final Expr index = expression();
+                consume(TokenType.RIGHT_BRACKET, "Expect ']' after index.");
+                expr = new Expr.Index(expr, bracket, index);
             } else {
                 break;
             }
@@ -355,6 +429,18 @@ public class Parser {
             return new Expr.Grouping(expr);
         }
 
+        if (match(TokenType.LEFT_BRACKET)) {
+            final Token bracket = previous();
+            final List<Expr> elements = new ArrayList<>();
+            if (!check(TokenType.RIGHT_BRACKET)) {
+                do {
+                    elements.add(expression());
+                } while (match(TokenType.COMMA));
+            }
+            consume(TokenType.RIGHT_BRACKET, "Expect ']' after array elements.");
+            return new Expr.Array(bracket, elements);
+        }
+
         throw error(peek(), "Expect expression.");
     }
 
@@ -398,12 +484,17 @@ public class Parser {
         return tokens.get(current);
     }
 
+    // The token the given distance past the current one, or EOF.
+    private Token peekAhead(int distance) {
+        return tokens.get(Math.min(current + distance, tokens.size() - 1));
+    }
+
     private Token previous() {
         return tokens.get(current - 1);
     }
 
     private ParseError error(Token token, String message) {
-        Lox.error(token, message);
+        reporter.error(token, message);
         return new ParseError();
     }
 
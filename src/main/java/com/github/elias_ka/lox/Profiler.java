@@ -0,0 +1,142 @@
+package com.github.elias_ka.lox;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+class Profiler {
+    private static final class Stats {
+        private final Stmt.Function function;
+        private long calls;
+        private long selfNanos;
+        private long totalNanos;
+        // Number of activations on the stack, so recursive calls only count once towards total time.
+        private int active;
+
+        private Stats(Stmt.Function function) {
+            this.function = function;
+        }
+    }
+
+    private static final class Node {
+        private final Stats stats;
+        private final Map<Stmt.Function, Node> children = new IdentityHashMap<>();
+        private long selfNanos;
+
+        private Node(Stats stats) {
+            this.stats = stats;
+        }
+    }
+
+    private final Map<Stmt.Function, Stats> stats = new IdentityHashMap<>();
+    private final Node root = new Node(null);
+    private final long startNanos = System.nanoTime();
+    private long stopNanos;
+
+    // The shadow call stack.
+    private Node[] nodes = new Node[64];
+    private long[] starts = new long[64];
+    private long[] childNanos = new long[64];
+    private int depth = 0;
+
+    void enter(Stmt.Function function) {
+        final Node parent = depth == 0 ? root : nodes[depth - 1];
+        Node node = parent.children.get(function);
+        if (node == null) {
+            node = new Node(stats.computeIfAbsent(function, Stats::new));
+            parent.children.put(function, node);
+        }
+        node.stats.active++;
+
+        if (depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth * 2);
+            starts = Arrays.copyOf(starts, depth * 2);
+            childNanos = Arrays.copyOf(childNanos, depth * 2);
+        }
+        nodes[depth] = node;
+        childNanos[depth] = 0;
+        starts[depth++] = System.nanoTime();
+    }
+
+    void exit() {
+        final long elapsed = System.nanoTime() - starts[--depth];
+        final Node node = nodes[depth];
+        final long self = elapsed - childNanos[depth];
+        nodes[depth] = null;
+
+        node.selfNanos += self;
+        node.stats.calls++;
+        node.stats.selfNanos += self;
+        if (--node.stats.active == 0) {
+            node.stats.totalNanos += elapsed;
+        }
+
+        if (depth > 0) {
+            childNanos[depth - 1] += elapsed;
+        }
+    }
+
+    void stop() {
+        stopNanos = System.nanoTime();
+    }
+
+    void report(PrintStream out) {
+        final long wallNanos = stopNanos - startNanos;
+        final List<Stats> functions = new ArrayList<>(stats.values());
+        functions.sort(Comparator.comparingLong((Stats s) -> s.selfNanos).reversed());
+
+        out.printf("%-32s %10s %12s %8s %12s %8s%n", "function", "calls", "self ms", "self %", "total ms", "total %");
+        for (final Stats s : functions) {
+            out.printf("%-32s %10d %12.3f %7.2f%% %12.3f %7.2f%%%n", frameName(s.function), s.calls,
+                    s.selfNanos / 1e6, percent(s.selfNanos, wallNanos),
+                    s.totalNanos / 1e6, percent(s.totalNanos, wallNanos));
+        }
+        out.printf("%-32s %10s %12.3f%n", "<wall time>", "", wallNanos / 1e6);
+    }
+
+    // Writes one line per distinct stack with its self time in microseconds, the "collapsed" format understood by
+    // flame graph tools. Time spent in top-level code is attributed to the <script> frame.
+    void writeCollapsed(PrintWriter out) {
+        final long wallNanos = stopNanos - startNanos;
+        long childNanos = 0;
+        for (final Node child : root.children.values()) {
+            childNanos += totalNanos(child);
+        }
+
+        out.printf("<script> %d%n", Math.max(0, wallNanos - childNanos) / 1000);
+        for (final Node child : root.children.values()) {
+            writeCollapsed(out, "<script>", child);
+        }
+    }
+
+    private void writeCollapsed(PrintWriter out, String prefix, Node node) {
+        final String stack = prefix + ";" + frameName(node.stats.function);
+        if (node.selfNanos >= 1000) {
+            out.printf("%s %d%n", stack, node.selfNanos / 1000);
+        }
+        for (final Node child : node.children.values()) {
+            writeCollapsed(out, stack, child);
+        }
+    }
+
+    private static long totalNanos(Node node) {
+        long total = node.selfNanos;
+        for (final Node child : node.children.values()) {
+            total += totalNanos(child);
+        }
+        return total;
+    }
+
+    private static String frameName(Stmt.Function function) {
+        return "%s:%d".formatted(function.name.lexeme(), function.name.line());
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : part * 100.0 / whole;
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.elias_ka.lox;
+
+import java.util.Collections;
+import java.util.List;
+
+// A scanned, parsed and resolved script. Programs are immutable once compiled, so one instance can be executed any
+// number of times, concurrently, each execution with its own interpreter and globals. Resolution results live on the
+// AST itself, so a program that is no longer referenced is collected along with everything compiled for it.
+//
+// The one thing written to the AST at run time is the Java interop caches on calls and property reads: immutable
+// records in volatile fields, which any execution may replace and which never refer to an execution's values.
+public final class Program {
+    private final List<Stmt> statements;
+
+    Program(List<Stmt> statements) {
+        this.statements = Collections.unmodifiableList(statements);
+    }
+
+    List<Stmt> getStatements() {
+        return statements;
+    }
+}
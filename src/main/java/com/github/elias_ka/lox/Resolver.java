@@ -3,13 +3,14 @@ package com.github.elias_ka.lox;
 import java.util.*;
 
 public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
-    private final Interpreter interpreter;
+    private final ErrorReporter reporter;
     private final Deque<Map<String, Boolean>> scopes = new ArrayDeque<>();
     private FunctionType currentFunction = FunctionType.NONE;
+    private boolean inGenerator = false;
     private ClassType currentClass = ClassType.NONE;
 
-    public Resolver(Interpreter interpreter) {
-        this.interpreter = interpreter;
+    public Resolver(ErrorReporter reporter) {
+        this.reporter = reporter;
     }
 
     private enum FunctionType {
@@ -47,7 +48,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
         if (stmt.superclass != null) {
             if (stmt.name.lexeme().equals(stmt.superclass.name.lexeme())) {
-                Lox.error(stmt.superclass.name, "A class cannot inherit from itself.");
+                reporter.error(stmt.superclass.name, "A class cannot inherit from itself.");
             } else {
                 currentClass = ClassType.SUBCLASS;
                 resolve(stmt.superclass);
@@ -109,17 +110,45 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitReturnStmt(Stmt.Return stmt) {
         if (currentFunction == FunctionType.NONE) {
-            Lox.error(stmt.keyword, "Cannot return from top-level code.");
+            reporter.error(stmt.keyword, "Cannot return from top-level code.");
         }
         if (stmt.value != null) {
             if (currentFunction == FunctionType.INITIALIZER) {
-                Lox.error(stmt.keyword, "Cannot return a value from an initializer.");
+                reporter.error(stmt.keyword, "Cannot return a value from an initializer.");
             }
+            if (inGenerator) {
+                reporter.error(stmt.keyword, "Cannot return a value from a generator.");
+            }
+            resolve(stmt.value);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitYieldStmt(Stmt.Yield stmt) {
+        if (currentFunction == FunctionType.NONE) {
+            reporter.error(stmt.keyword, "Cannot yield from top-level code.");
+        }
+        if (currentFunction == FunctionType.INITIALIZER) {
+            reporter.error(stmt.keyword, "Cannot yield from an initializer.");
+        }
+        if (stmt.value != null) {
             resolve(stmt.value);
         }
         return null;
     }
 
+    @Override
+    public Void visitForEachStmt(Stmt.ForEach stmt) {
+        resolve(stmt.iterable);
+        beginScope();
+        declare(stmt.name);
+        define(stmt.name);
+        resolve(stmt.body);
+        endScope();
+        return null;
+    }
+
     @Override
     public Void visitVarStmt(Stmt.Var stmt) {
         declare(stmt.name);
@@ -137,10 +166,17 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitArrayExpr(Expr.Array expr) {
+        expr.elements.forEach(this::resolve);
+        return null;
+    }
+
     @Override
     public Void visitAssignExpr(Expr.Assign expr) {
         resolve(expr.value);
-        resolveLocal(expr, expr.name);
+        expr.depth = resolveLocal(expr.name);
+        if (expr.depth < 0) expr.slot = expr.name.symbol().globalSlot();
         return null;
     }
 
@@ -151,6 +187,20 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitCompareExpr(Expr.Compare expr) {
+        resolve(expr.left);
+        resolve(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visitUpdateExpr(Expr.Update expr) {
+        resolve(expr.variable);
+        resolve(expr.value);
+        return null;
+    }
+
     @Override
     public Void visitCallExpr(Expr.Call expr) {
         resolve(expr.callee);
@@ -170,6 +220,21 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        resolve(expr.object);
+        resolve(expr.index);
+        return null;
+    }
+
+    @Override
+    public Void visitIndexSetExpr(Expr.IndexSet expr) {
+        resolve(expr.value);
+        resolve(expr.object);
+        resolve(expr.index);
+        return null;
+    }
+
     @Override
     public Void visitLiteralExpr(Expr.Literal expr) {
         return null;
@@ -192,22 +257,22 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitSuperExpr(Expr.Super expr) {
         if (currentClass == ClassType.NONE) {
-            Lox.error(expr.keyword, "Cannot use 'super' outside of a class.");
+            reporter.error(expr.keyword, "Cannot use 'super' outside of a class.");
         } else if (currentClass != ClassType.SUBCLASS) {
-            Lox.error(expr.keyword, "Cannot use 'super' in a class with no superclass.");
+            reporter.error(expr.keyword, "Cannot use 'super' in a class with no superclass.");
         }
 
-        resolveLocal(expr, expr.keyword);
+        expr.depth = resolveLocal(expr.keyword);
         return null;
     }
 
     @Override
     public Void visitThisExpr(Expr.This expr) {
         if (currentClass == ClassType.NONE) {
-            Lox.error(expr.keyword, "Cannot use 'this' outside of a class.");
+            reporter.error(expr.keyword, "Cannot use 'this' outside of a class.");
             return null;
         }
-        resolveLocal(expr, expr.keyword);
+        expr.depth = resolveLocal(expr.keyword);
         return null;
     }
 
@@ -220,10 +285,11 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitVariableExpr(Expr.Variable expr) {
         if (!scopes.isEmpty() && scopes.peek().get(expr.name.lexeme()) == Boolean.FALSE) {
-            Lox.error(expr.name, "Cannot read local variable in its own initializer.");
+            reporter.error(expr.name, "Cannot read local variable in its own initializer.");
         }
 
-        resolveLocal(expr, expr.name);
+        expr.depth = resolveLocal(expr.name);
+        if (expr.depth < 0) expr.slot = expr.name.symbol().globalSlot();
         return null;
     }
 
@@ -247,7 +313,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         if (scopes.isEmpty()) return;
         final Map<String, Boolean> scope = scopes.peek();
         if (scope.containsKey(name.lexeme())) {
-            Lox.error(name, "Variable '%s' already declared in this scope.".formatted(name.lexeme()));
+            reporter.error(name, "Variable '%s' already declared in this scope.".formatted(name.lexeme()));
         }
         scope.put(name.lexeme(), false);
     }
@@ -257,20 +323,23 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         scopes.peek().put(name.lexeme(), true);
     }
 
-    private void resolveLocal(Expr expr, Token name) {
+    // Returns how many scopes out the name is declared, or -1 if it is assumed to be global.
+    private int resolveLocal(Token name) {
         int depth = 0;
         for (final Map<String, Boolean> scope : scopes) {
             if (scope.containsKey(name.lexeme())) {
-                interpreter.resolve(expr, depth);
-                return;
+                return depth;
             }
             depth++;
         }
+        return -1;
     }
 
     private void resolveFunction(Stmt.Function function, FunctionType type) {
         final FunctionType enclosingFunction = currentFunction;
+        final boolean enclosingGenerator = inGenerator;
         currentFunction = type;
+        inGenerator = function.isGenerator;
 
         beginScope();
         function.params.forEach(param -> {
@@ -281,5 +350,6 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         endScope();
 
         currentFunction = enclosingFunction;
+        inGenerator = enclosingGenerator;
     }
 }
@@ -0,0 +1,102 @@
+package com.github.elias_ka.lox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+
+// The result of concatenating strings with '+'. Appending only allocates a node pointing at both operands, so building
+// a string piece by piece is linear rather than quadratic. The characters are copied once, the first time the whole
+// string is needed, and the result is kept in place of the operands, so that a string printed at every step of a loop
+// doesn't keep all its earlier versions alive.
+//
+// Scripts never see the difference: anything that looks at a string's contents (printing, '==', map keys) goes through
+// toString(). Each operand is either a String or another Rope.
+final class Rope {
+    // Below this length copying is cheaper than keeping a node around.
+    private static final int MIN_LENGTH = 64;
+
+    private static final VarHandle LEFT;
+    private static final VarHandle RIGHT;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LEFT = lookup.findVarHandle(Rope.class, "left", Object.class);
+            RIGHT = lookup.findVarHandle(Rope.class, "right", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Cleared once flat is set. The clearing is a release write, so a thread that reads a cleared operand with an
+    // acquire read also sees flat.
+    private Object left;
+    private Object right;
+    private final int length;
+    // Racy but benign, like String's cached hash: every thread computes the same value.
+    private String flat;
+
+    private Rope(Object left, Object right, int length) {
+        this.left = left;
+        this.right = right;
+        this.length = length;
+    }
+
+    static boolean isString(Object value) {
+        return value instanceof String || value instanceof Rope;
+    }
+
+    // Returns a plain String for strings and flattened ropes, and the value itself otherwise.
+    static Object flatten(Object value) {
+        return value instanceof Rope rope ? rope.toString() : value;
+    }
+
+    static Object concat(Object left, Object right) {
+        final int length = length(left) + length(right);
+        if (length < 0) {
+            throw new NativeError("String is too long.");
+        }
+        if (length < MIN_LENGTH) {
+            return left.toString().concat(right.toString());
+        }
+        return new Rope(left, right, length);
+    }
+
+    static int length(Object string) {
+        return string instanceof Rope rope ? rope.length : ((String) string).length();
+    }
+
+    @Override
+    public String toString() {
+        String result = flat;
+        if (result == null) {
+            result = flat = build();
+            LEFT.setRelease(this, null);
+            RIGHT.setRelease(this, null);
+        }
+        return result;
+    }
+
+    // Walks the tree with an explicit stack, since a string built in a loop is as deep as the loop ran.
+    private String build() {
+        final StringBuilder builder = new StringBuilder(length);
+        final ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            final Object part = pending.pop();
+            if (part instanceof Rope rope) {
+                final Object left = LEFT.getAcquire(rope);
+                final Object right = RIGHT.getAcquire(rope);
+                if (left == null || right == null || rope.flat != null) {
+                    builder.append(rope.flat);
+                } else {
+                    pending.push(right);
+                    pending.push(left);
+                }
+            } else {
+                builder.append((String) part);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.elias_ka.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.elias_ka.lox.RuntimeError")
+@Label("Lox Runtime Error")
+@Category("Lox")
+class RuntimeErrorEvent extends jdk.jfr.Event {
+    @Label("Message")
+    String message;
+
+    @Label("Line")
+    int line;
+
+    static void emit(RuntimeError error) {
+        final RuntimeErrorEvent event = new RuntimeErrorEvent();
+        if (event.isEnabled()) {
+            event.message = error.getMessage();
+            event.line = error.getToken().line();
+            event.commit();
+        }
+    }
+}
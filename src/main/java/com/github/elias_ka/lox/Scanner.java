@@ -21,16 +21,19 @@ public class Scanner {
             Map.entry("this", TokenType.THIS),
             Map.entry("true", TokenType.TRUE),
             Map.entry("var", TokenType.VAR),
-            Map.entry("while", TokenType.WHILE));
+            Map.entry("while", TokenType.WHILE),
+            Map.entry("yield", TokenType.YIELD));
 
     private final String source;
+    private final ErrorReporter reporter;
     private final List<Token> tokens = new ArrayList<>();
     private int start;
     private int current;
     private int line = 1;
 
-    Scanner(String source) {
+    Scanner(String source, ErrorReporter reporter) {
         this.source = source;
+        this.reporter = reporter;
     }
 
     private static boolean isAlpha(char c) {
@@ -64,6 +67,8 @@ public class Scanner {
             case ')' -> addToken(TokenType.RIGHT_PAREN);
             case '{' -> addToken(TokenType.LEFT_BRACE);
             case '}' -> addToken(TokenType.RIGHT_BRACE);
+            case '[' -> addToken(TokenType.LEFT_BRACKET);
+            case ']' -> addToken(TokenType.RIGHT_BRACKET);
             case ',' -> addToken(TokenType.COMMA);
             case '.' -> addToken(TokenType.DOT);
             case '-' -> addToken(TokenType.MINUS);
@@ -95,7 +100,7 @@ public class Scanner {
                 } else if (isAlpha(c)) {
                     identifier();
                 } else {
-                    Lox.error(line, "Unexpected character.");
+                    reporter.error(line, "Unexpected character.");
                 }
             }
         }
@@ -110,7 +115,13 @@ public class Scanner {
         if (type == null) {
             type = TokenType.IDENTIFIER;
         }
-        addToken(type);
+
+        if (type == TokenType.IDENTIFIER || type == TokenType.THIS || type == TokenType.SUPER) {
+            final Symbol symbol = Symbol.of(text);
+            tokens.add(new Token(type, symbol.name(), null, line, symbol));
+        } else {
+            addToken(type);
+        }
     }
 
     private void number() {
@@ -139,7 +150,7 @@ public class Scanner {
         }
 
         if (isAtEnd()) {
-            Lox.error(line, "Unterminated string.");
+            reporter.error(line, "Unterminated string.");
             return;
         }
 
@@ -0,0 +1,35 @@
+package com.github.elias_ka.lox;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+// A program submitted to a Scheduler. The result completes with false if the program stopped with a runtime error.
+public final class ScheduledExecution {
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final long submitted = System.nanoTime();
+    private volatile long started;
+
+    public CompletableFuture<Boolean> result() {
+        return result;
+    }
+
+    // Time spent holding a scheduler permit, summed over the execution and the tasks it spawned.
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    // How long the execution waited for its first permit, or -1 if it hasn't started yet.
+    public long getQueueNanos() {
+        final long start = started;
+        return start == 0 ? -1 : start - submitted;
+    }
+
+    LongAdder cpuNanos() {
+        return cpuNanos;
+    }
+
+    void markStarted() {
+        started = System.nanoTime();
+    }
+}
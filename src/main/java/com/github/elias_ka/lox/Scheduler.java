@@ -0,0 +1,120 @@
+package com.github.elias_ka.lox;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Runs many executions concurrently while letting at most a fixed number of them interpret at once. Every execution
+// gets its own virtual thread, and threads take turns holding one of the scheduler's permits: a thread gives its
+// permit up when its time slice runs out and others are waiting, and while it blocks in a native such as await(),
+// Channel receive() or Mutex lock(). Executions that mostly wait cost no more than a parked virtual thread, and busy
+// ones can't starve the rest.
+//
+// Permits are handed out in FIFO order, so a thread that yields goes to the back of the queue. The scheduler keeps its
+// own queue rather than using a Semaphore: a new execution joins the queue when it is submitted, not when its thread
+// first runs, since busy interpreters leave the carrier threads little chance to run anything that isn't handed a
+// permit directly.
+public final class Scheduler {
+    private final long sliceNanos;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Timeslice> waiting = new ArrayDeque<>();
+    private int free;
+
+    public Scheduler(int threads, Duration slice, PrintStream out, PrintStream err) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        this.free = threads;
+        this.sliceNanos = slice.toNanos();
+        this.out = out;
+        this.err = err;
+    }
+
+    public ScheduledExecution submit(Program program, Map<String, Object> bindings) {
+        return submit(program, bindings, ExecutionLimits.NONE);
+    }
+
+    public ScheduledExecution submit(Program program, Map<String, Object> bindings, ExecutionLimits limits) {
+        final ScheduledExecution execution = new ScheduledExecution();
+        final Timeslice timeslice = new Timeslice(this, sliceNanos, execution.cpuNanos());
+
+        final Thread thread = Thread.ofVirtual().name("lox-scheduled").unstarted(() -> {
+            final ErrorReporter reporter = new ErrorReporter(err);
+            final Interpreter interpreter = new Interpreter(reporter, new OutputSink(out, false));
+            timeslice.begin();
+            execution.markStarted();
+            Throwable failure = null;
+            try {
+                interpreter.defineGlobals(bindings);
+                interpreter.limit(limits);
+                interpreter.schedule(timeslice);
+                Lox.execute(interpreter, program, reporter);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                timeslice.release();
+            }
+
+            // Only once the CPU time is complete.
+            if (failure != null) {
+                execution.result().completeExceptionally(failure);
+            } else {
+                execution.result().complete(!reporter.hadRuntimeError());
+            }
+        });
+        timeslice.enqueue(thread);
+        thread.start();
+        return execution;
+    }
+
+    // Grants a permit straight away if one is free and nobody is waiting, otherwise queues the timeslice.
+    void enqueue(Timeslice timeslice) {
+        lock.lock();
+        try {
+            if (free > 0 && waiting.isEmpty()) {
+                free--;
+                timeslice.grant();
+            } else {
+                waiting.add(timeslice);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            final Timeslice next = waiting.poll();
+            if (next != null) {
+                next.grant();
+            } else {
+                free++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Passes the caller's permit to the first waiting timeslice and queues the caller behind the rest. Returns false,
+    // keeping the permit, if nobody is waiting.
+    boolean handOff(Timeslice timeslice) {
+        lock.lock();
+        try {
+            final Timeslice next = waiting.poll();
+            if (next == null) {
+                return false;
+            }
+            waiting.add(timeslice);
+            next.grant();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.elias_ka.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.elias_ka.lox.ScriptExecution")
+@Label("Lox Script Execution")
+@Category("Lox")
+class ScriptExecutionEvent extends jdk.jfr.Event {
+    @Label("Statements")
+    int statements;
+
+    @Label("Failed")
+    boolean failed;
+
+    static void record(Interpreter interpreter, Program program, ErrorReporter reporter) {
+        final ScriptExecutionEvent event = new ScriptExecutionEvent();
+        if (!event.isEnabled()) {
+            interpreter.interpret(program);
+            return;
+        }
+        event.begin();
+        interpreter.interpret(program);
+        event.end();
+        if (event.shouldCommit()) {
+            event.statements = program.getStatements().size();
+            event.failed = reporter.hadRuntimeError();
+            event.commit();
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.github.elias_ka.lox;
 import java.util.List;
 
 public abstract class Stmt {
+    // The line the statement starts on, set by the parser.
+    int line;
+
     interface Visitor<R> {
         R visitBlockStmt(Block stmt);
 
@@ -10,6 +13,8 @@ public abstract class Stmt {
 
         R visitExpressionStmt(Expression stmt);
 
+        R visitForEachStmt(ForEach stmt);
+
         R visitFunctionStmt(Function stmt);
 
         R visitIfStmt(If stmt);
@@ -22,6 +27,8 @@ public abstract class Stmt {
 
         R visitWhileStmt(While stmt);
 
+        R visitYieldStmt(Yield stmt);
+
     }
 
     public static class Block extends Stmt {
@@ -67,15 +74,36 @@ public abstract class Stmt {
         }
     }
 
+    public static class ForEach extends Stmt {
+        public final Token keyword;
+        public final Token name;
+        public final Expr iterable;
+        public final Stmt body;
+
+        ForEach(Token keyword, Token name, Expr iterable, Stmt body) {
+            this.keyword = keyword;
+            this.name = name;
+            this.iterable = iterable;
+            this.body = body;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitForEachStmt(this);
+        }
+    }
+
     public static class Function extends Stmt {
         public final Token name;
         public final List<Token> params;
         public final List<Stmt> body;
+        public final boolean isGenerator;
 
-        Function(Token name, List<Token> params, List<Stmt> body) {
+        Function(Token name, List<Token> params, List<Stmt> body, boolean isGenerator) {
             this.name = name;
             this.params = params;
             this.body = body;
+            this.isGenerator = isGenerator;
         }
 
         @Override
@@ -145,10 +173,12 @@ public abstract class Stmt {
     }
 
     public static class While extends Stmt {
+        public final Token keyword;
         public final Expr condition;
         public final Stmt body;
 
-        While(Expr condition, Stmt body) {
+        While(Token keyword, Expr condition, Stmt body) {
+            this.keyword = keyword;
             this.condition = condition;
             this.body = body;
         }
@@ -159,5 +189,20 @@ public abstract class Stmt {
         }
     }
 
+    public static class Yield extends Stmt {
+        public final Token keyword;
+        public final Expr value;
+
+        Yield(Token keyword, Expr value) {
+            this.keyword = keyword;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitYieldStmt(this);
+        }
+    }
+
     abstract <R> R accept(Visitor<R> visitor);
 }
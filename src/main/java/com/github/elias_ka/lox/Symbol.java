@@ -0,0 +1,103 @@
+package com.github.elias_ka.lox;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+// An interned identifier. There is exactly one Symbol per name, created when the scanner first sees it, so runtime
+// lookups keyed by symbol compare by identity and use a hash computed up front instead of going through the lexeme.
+//
+// The table only holds symbols weakly, so names used by code that has since been collected don't accumulate in long
+// sessions. Entries are keyed by the symbol's own name string, which keeps an entry alive exactly as long as its
+// symbol is.
+public final class Symbol {
+    private static final Map<String, WeakReference<Symbol>> table = new WeakHashMap<>();
+    // Global slots are given out lowest first and taken back once their symbol is collected, so they stay about as
+    // dense as the set of live global names.
+    private static final BitSet usedSlots = new BitSet();
+    private static final Set<SlotReference> slotReferences = new HashSet<>();
+    private static final ReferenceQueue<Symbol> collectedSlots = new ReferenceQueue<>();
+
+    static final Symbol THIS = of("this");
+    static final Symbol SUPER = of("super");
+    static final Symbol INIT = of("init");
+
+    private final String name;
+    private final int hash;
+    private volatile int globalSlot = -1;
+
+    private Symbol(String name) {
+        this.name = name;
+        final int h = name.hashCode();
+        this.hash = h ^ (h >>> 16);
+    }
+
+    public static Symbol of(String name) {
+        synchronized (table) {
+            final WeakReference<Symbol> reference = table.get(name);
+            Symbol symbol = reference != null ? reference.get() : null;
+            if (symbol == null) {
+                symbol = new Symbol(name);
+                table.put(symbol.name, new WeakReference<>(symbol));
+            }
+            return symbol;
+        }
+    }
+
+    // The index of this name in every GlobalEnvironment's cell array, given out the first time the name is resolved as
+    // a global. A slot is only reused after its symbol has been collected, when no environment can still hold a cell
+    // for it, since cells keep their names alive.
+    int globalSlot() {
+        final int slot = globalSlot;
+        return slot >= 0 ? slot : assignGlobalSlot();
+    }
+
+    private int assignGlobalSlot() {
+        synchronized (usedSlots) {
+            if (globalSlot < 0) {
+                for (Reference<? extends Symbol> collected; (collected = collectedSlots.poll()) != null; ) {
+                    slotReferences.remove(collected);
+                    usedSlots.clear(((SlotReference) collected).slot);
+                }
+                final int slot = usedSlots.nextClearBit(0);
+                usedSlots.set(slot);
+                slotReferences.add(new SlotReference(this, slot));
+                globalSlot = slot;
+            }
+            return globalSlot;
+        }
+    }
+
+    private static final class SlotReference extends WeakReference<Symbol> {
+        private final int slot;
+
+        private SlotReference(Symbol symbol, int slot) {
+            super(symbol, collectedSlots);
+            this.slot = slot;
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
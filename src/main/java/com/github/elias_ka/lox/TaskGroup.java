@@ -0,0 +1,60 @@
+package com.github.elias_ka.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// The tasks spawned during one execution, by its script or by other tasks. The execution waits for all of them before
+// it ends, so none is left running against the globals and output of whatever the interpreter runs next.
+//
+// The tasks' interpreters share one budget, the execution's own if it has limits, which is also how running tasks are
+// told to stop: a cancelled budget fails the next chunk of steps taken from it.
+final class TaskGroup {
+    private final Queue<LoxTask> tasks = new ConcurrentLinkedQueue<>();
+    private final ExecutionBudget budget;
+
+    TaskGroup(ExecutionBudget budget) {
+        this.budget = budget != null ? budget : new ExecutionBudget(ExecutionLimits.NONE);
+    }
+
+    ExecutionBudget budget() {
+        return budget;
+    }
+
+    void add(LoxTask task) {
+        tasks.add(task);
+    }
+
+    // Waits for every task, including those spawned meanwhile, cancelling them first if cancel is set. Returns the
+    // errors of tasks that failed without anything awaiting them.
+    List<RuntimeError> finish(boolean cancel) {
+        final List<RuntimeError> errors = new ArrayList<>();
+        boolean interrupted = false;
+        if (cancel) budget.cancel();
+
+        LoxTask task;
+        while ((task = tasks.poll()) != null) {
+            if (cancel) task.cancel();
+            while (true) {
+                try {
+                    task.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    if (!cancel) {
+                        cancel = true;
+                        budget.cancel();
+                    }
+                    task.cancel();
+                }
+            }
+
+            final RuntimeError error = task.unobservedError();
+            if (error != null) errors.add(error);
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+        return errors;
+    }
+}
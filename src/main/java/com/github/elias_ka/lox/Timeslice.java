@@ -0,0 +1,88 @@
+package com.github.elias_ka.lox;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// One thread's share of a Scheduler: the thread may only interpret while holding one of the scheduler's permits.
+// Every CHECK_INTERVAL back-edges and calls it looks at the clock, and once it has run for a whole slice while other
+// threads are waiting, it hands its permit to the first of them and goes to the back of the queue.
+//
+// Each thread has its own Timeslice; tasks forked from an execution add to that execution's CPU time.
+final class Timeslice {
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final Scheduler scheduler;
+    private final long sliceNanos;
+    private final LongAdder cpuNanos;
+    private Thread thread;
+    private volatile boolean granted;
+    private long start;
+    private long sliceStart;
+    private int ticks = CHECK_INTERVAL;
+
+    Timeslice(Scheduler scheduler, long sliceNanos, LongAdder cpuNanos) {
+        this.scheduler = scheduler;
+        this.sliceNanos = sliceNanos;
+        this.cpuNanos = cpuNanos;
+    }
+
+    Timeslice fork() {
+        return new Timeslice(scheduler, sliceNanos, cpuNanos);
+    }
+
+    // Queues the thread this timeslice is for, before it is started, so it takes its turn from the moment it's
+    // submitted rather than from whenever a carrier thread first gets around to running it.
+    void enqueue(Thread thread) {
+        this.thread = thread;
+        scheduler.enqueue(this);
+    }
+
+    // Called first thing on the new thread.
+    void begin() {
+        awaitGrant();
+    }
+
+    void acquire() {
+        scheduler.enqueue(this);
+        awaitGrant();
+    }
+
+    void release() {
+        cpuNanos.add(System.nanoTime() - start);
+        scheduler.release();
+    }
+
+    void tick() {
+        if (--ticks < 0) {
+            ticks = CHECK_INTERVAL;
+            if (System.nanoTime() - sliceStart < sliceNanos) {
+                return;
+            }
+
+            cpuNanos.add(System.nanoTime() - start);
+            if (scheduler.handOff(this)) {
+                awaitGrant();
+            } else {
+                start = System.nanoTime();
+                sliceStart = start;
+            }
+        }
+    }
+
+    // Called by the scheduler, with its lock held, to give this thread a permit.
+    void grant() {
+        granted = true;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void awaitGrant() {
+        while (!granted) {
+            LockSupport.park(this);
+        }
+        granted = false;
+        start = System.nanoTime();
+        sliceStart = start;
+    }
+}
@@ -1,6 +1,11 @@
 package com.github.elias_ka.lox;
 
-public record Token(TokenType type, String lexeme, Object literal, int line) {
+// Identifiers, 'this' and 'super' carry their interned symbol; other tokens have none.
+public record Token(TokenType type, String lexeme, Object literal, int line, Symbol symbol) {
+
+    public Token(TokenType type, String lexeme, Object literal, int line) {
+        this(type, lexeme, literal, line, null);
+    }
 
     @Override
     public String toString() {
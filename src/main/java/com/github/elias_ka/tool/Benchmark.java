@@ -0,0 +1,177 @@
+package com.github.elias_ka.tool;
+
+import com.github.elias_ka.lox.Lox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class Benchmark {
+    private record Result(String name, double meanMillis, double p50Millis, double p90Millis, double p99Millis,
+                          long allocatedBytes, long gcMillis) {
+    }
+
+    private static final class ScriptFailed extends RuntimeException {
+        ScriptFailed(String name) {
+            super("Benchmark '%s' failed.".formatted(name));
+        }
+    }
+
+    public static void main(String[] args) {
+        int warmup = 5;
+        int iterations = 10;
+        String baseline = null;
+        String save = null;
+        String dir = null;
+
+        try {
+            for (var i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                    case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                    case "--baseline" -> baseline = args[++i];
+                    case "--save" -> save = args[++i];
+                    default -> dir = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            dir = null;
+        }
+
+        if (dir == null || iterations < 1) {
+            System.err.println(
+                    "Usage: benchmark [--warmup n] [--iterations n] [--baseline file] [--save file] <bench directory>");
+            System.exit(64);
+        }
+
+        try {
+            final Map<String, Result> previous = baseline != null ? readBaseline(Paths.get(baseline)) : Map.of();
+            final List<Path> scripts;
+            try (Stream<Path> files = Files.list(Paths.get(dir))) {
+                scripts = files.filter(path -> path.toString().endsWith(".lox")).sorted().toList();
+            }
+
+            System.out.printf("%-20s %10s %10s %10s %10s %14s %8s%n",
+                    "benchmark", "mean ms", "p50 ms", "p90 ms", "p99 ms", "alloc/run", "gc ms");
+
+            final List<Result> results = new ArrayList<>();
+            for (final Path script : scripts) {
+                final Result result = measure(script, Files.readString(script), warmup, iterations);
+                report(result, previous.get(result.name()));
+                results.add(result);
+            }
+
+            if (save != null) {
+                writeBaseline(Paths.get(save), results);
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(74);
+        } catch (ScriptFailed e) {
+            System.err.println(e.getMessage());
+            System.exit(70);
+        }
+    }
+
+    private static Result measure(Path script, String source, int warmup, int iterations) {
+        final String name = script.getFileName().toString().replaceFirst("\\.lox$", "");
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Scripts print their results; keep that out of the report.
+        final PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        final long[] times = new long[iterations];
+        long allocated = 0;
+        long gcMillis = 0;
+
+        for (var i = 0; i < warmup; i++) {
+            run(name, source, out);
+        }
+
+        for (var i = 0; i < iterations; i++) {
+            final long gcBefore = collectionTime();
+            // Counted over all threads, as scripts can spawn tasks. Virtual threads allocate on their carriers.
+            final long allocBefore = threads.getTotalThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            run(name, source, out);
+            times[i] = System.nanoTime() - start;
+            allocated += threads.getTotalThreadAllocatedBytes() - allocBefore;
+            gcMillis += collectionTime() - gcBefore;
+        }
+
+        Arrays.sort(times);
+        final double mean = Arrays.stream(times).average().orElse(0) / 1e6;
+        return new Result(name, mean, percentile(times, 50), percentile(times, 90), percentile(times, 99),
+                allocated / iterations, gcMillis);
+    }
+
+    // A script that fails would be timed doing something other than what it's meant to measure.
+    private static void run(String name, String source, PrintStream out) {
+        final Lox lox = new Lox(out, System.err);
+        lox.run(source);
+        if (lox.hadError() || lox.hadRuntimeError()) {
+            throw new ScriptFailed(name);
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long collectionTime() {
+        long total = 0;
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static void report(Result result, Result previous) {
+        System.out.printf("%-20s %10.2f %10.2f %10.2f %10.2f %14d %8d%n", result.name(), result.meanMillis(),
+                result.p50Millis(), result.p90Millis(), result.p99Millis(), result.allocatedBytes(), result.gcMillis());
+
+        if (previous != null) {
+            System.out.printf("%-20s %+9.1f%% %54s%+13.1f%%%n", "  vs baseline",
+                    change(previous.meanMillis(), result.meanMillis()), "",
+                    change(previous.allocatedBytes(), result.allocatedBytes()));
+        }
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+
+    private static Map<String, Result> readBaseline(Path path) throws IOException {
+        final Map<String, Result> results = new HashMap<>();
+        for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            final String[] parts = line.split("\t");
+            if (parts.length != 7) continue;
+            results.put(parts[0], new Result(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                    Double.parseDouble(parts[3]), Double.parseDouble(parts[4]), Long.parseLong(parts[5]),
+                    Long.parseLong(parts[6])));
+        }
+        return results;
+    }
+
+    private static void writeBaseline(Path path, List<Result> results) throws IOException {
+        try (PrintWriter writer = new PrintWriter(path.toFile(), StandardCharsets.UTF_8)) {
+            for (final Result result : results) {
+                writer.printf("%s\t%s\t%s\t%s\t%s\t%d\t%d%n", result.name(), result.meanMillis(), result.p50Millis(),
+                        result.p90Millis(), result.p99Millis(), result.allocatedBytes(), result.gcMillis());
+            }
+        }
+    }
+}
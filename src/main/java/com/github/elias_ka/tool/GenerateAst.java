@@ -16,31 +16,38 @@ public class GenerateAst {
         }
         String outputDir = args[0];
         try {
-            defineAst(outputDir, "Expr", List.of(
-                    "Assign   : Token name, Expr value",
+            defineAst(outputDir, "Expr", List.of(), List.of(
+                    "Array    : Token bracket, List<Expr> elements",
+                    "Assign   : Token name, Expr value | int depth = -1, int slot = -1",
                     "Binary   : Expr left, Token operator, Expr right",
-                    "Call     : Expr callee, Token paren, List<Expr> arguments",
-                    "Get      : Expr object, Token name",
+                    "Call     : Expr callee, Token paren, List<Expr> arguments | volatile Object site = null",
+                    "Compare  : Expr.Variable left, Token operator, Expr right",
+                    "Get      : Expr object, Token name | volatile Object cache = null",
                     "Grouping : Expr expression",
+                    "Index    : Expr object, Token bracket, Expr index",
+                    "IndexSet : Expr object, Token bracket, Expr index, Expr value",
                     "Literal  : Object value",
                     "Logical  : Expr left, Token operator, Expr right",
                     "Set      : Expr object, Token name, Expr value",
-                    "Super    : Token keyword, Token method",
-                    "This     : Token keyword",
+                    "Super    : Token keyword, Token method | int depth = -1",
+                    "This     : Token keyword | int depth = -1",
                     "Unary    : Token operator, Expr right",
-                    "Variable : Token name"
+                    "Update   : Expr.Variable variable, Token operator, Expr value",
+                    "Variable : Token name | int depth = -1, int slot = -1"
             ));
 
-            defineAst(outputDir, "Stmt", List.of(
+            defineAst(outputDir, "Stmt", List.of("// The line the statement starts on, set by the parser.", "int line"), List.of(
                     "Block      : List<Stmt> statements",
                     "Class      : Token name, Expr.Variable superclass, List<Stmt.Function> methods",
                     "Expression : Expr expression",
-                    "Function   : Token name, List<Token> params, List<Stmt> body",
+                    "ForEach    : Token keyword, Token name, Expr iterable, Stmt body",
+                    "Function   : Token name, List<Token> params, List<Stmt> body, boolean isGenerator",
                     "If         : Expr condition, Stmt thenBranch, Stmt elseBranch",
                     "Print      : Expr expression",
                     "Return     : Token keyword, Expr value",
                     "Var        : Token name, Expr initializer",
-                    "While      : Expr condition, Stmt body"
+                    "While      : Token keyword, Expr condition, Stmt body",
+                    "Yield      : Token keyword, Expr value"
             ));
         } catch (IOException e) {
             System.err.println("Error writing file: " + e.getMessage());
@@ -48,7 +55,9 @@ public class GenerateAst {
         }
     }
 
-    private static void defineAst(String outputDir, String baseName, List<String> types) throws IOException {
+    // Base fields are written as given, so comments can be mixed in.
+    private static void defineAst(String outputDir, String baseName, List<String> baseFields, List<String> types)
+            throws IOException {
         final Path path = Paths.get(outputDir, baseName + ".java");
 
         try (PrintWriter writer = new PrintWriter(path.toFile(), StandardCharsets.UTF_8)) {
@@ -57,6 +66,10 @@ public class GenerateAst {
             writer.println("import java.util.List;");
             writer.println();
             writer.println("public abstract class " + baseName + " {");
+            for (final String field : baseFields) {
+                writer.println("    " + field + (field.startsWith("//") ? "" : ";"));
+            }
+            if (!baseFields.isEmpty()) writer.println();
 
             defineVisitor(writer, baseName, types);
 
@@ -87,7 +100,11 @@ public class GenerateAst {
         writer.println();
     }
 
-    private static void defineType(PrintWriter writer, String baseName, String className, String fieldList) {
+    // Fields after a '|' are not constructor parameters but mutable state filled in by later passes, each given as
+    // "type name = initial value".
+    private static void defineType(PrintWriter writer, String baseName, String className, String fieldSpec) {
+        final String[] parts = fieldSpec.split(" \\| ");
+        final String fieldList = parts[0];
         final String[] fields = fieldList.split(", ");
 
         writer.println("    public static class " + className + " extends " + baseName + " {");
@@ -96,6 +113,11 @@ public class GenerateAst {
         for (String field : fields) {
             writer.println("        public final " + field + ";");
         }
+        if (parts.length > 1) {
+            for (final String field : parts[1].split(", ")) {
+                writer.println("        " + field + ";");
+            }
+        }
 
         // Constructor.
         writer.println();
@@ -0,0 +1,115 @@
+package com.github.elias_ka.tool;
+
+import com.github.elias_ka.lox.Lox;
+import com.github.elias_ka.lox.Program;
+import com.github.elias_ka.lox.ScheduledExecution;
+import com.github.elias_ka.lox.Scheduler;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Measures how long short scripts take to complete on a Scheduler that is also running long CPU-bound scripts: the
+// "event handler next to a batch job" case time slicing is for. The same load is run once with the given slice and
+// once with a slice so long that nothing is ever preempted, for comparison.
+public class SchedulerLatency {
+    private static final String BUSY = """
+            var n = 0;
+            for (var i = 0; i < 3000000; i = i + 1) n = n + i;
+            """;
+    private static final String HANDLER = """
+            var sum = 0;
+            for (var i = 0; i < 200; i = i + 1) sum = sum + i;
+            """;
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int busy = 4 * threads;
+        int handlers = 500;
+        long sliceMillis = 5;
+
+        try {
+            for (var i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--busy" -> busy = Integer.parseInt(args[++i]);
+                    case "--handlers" -> handlers = Integer.parseInt(args[++i]);
+                    case "--slice" -> sliceMillis = Long.parseLong(args[++i]);
+                    default -> threads = -1;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            threads = -1;
+        }
+
+        if (threads < 1 || busy < 0 || handlers < 1 || sliceMillis < 1) {
+            System.err.println("Usage: scheduler_latency [--threads n] [--busy n] [--handlers n] [--slice ms]");
+            System.exit(64);
+        }
+
+        final Lox lox = new Lox(new PrintStream(OutputStream.nullOutputStream()), System.err);
+        final Program busyProgram = lox.compile(BUSY);
+        final Program handlerProgram = lox.compile(HANDLER);
+
+        // Warm up the interpreter so the first run isn't penalized.
+        run(threads, Duration.ofMillis(sliceMillis), busyProgram, handlerProgram, busy, handlers);
+
+        System.out.printf("%-14s %10s %10s %10s %10s %14s%n",
+                "slice", "p50 ms", "p90 ms", "p99 ms", "max ms", "busy cpu ms");
+        report(sliceMillis + " ms", run(threads, Duration.ofMillis(sliceMillis), busyProgram, handlerProgram, busy,
+                handlers));
+        report("none", run(threads, Duration.ofDays(1), busyProgram, handlerProgram, busy, handlers));
+    }
+
+    private record Run(long[] latencies, long busyCpuNanos) {
+    }
+
+    private static Run run(int threads, Duration slice, Program busyProgram, Program handlerProgram, int busy,
+                           int handlers) throws Exception {
+        final PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        final Scheduler scheduler = new Scheduler(threads, slice, out, System.err);
+
+        final List<ScheduledExecution> batch = new ArrayList<>();
+        for (var i = 0; i < busy; i++) {
+            batch.add(scheduler.submit(busyProgram, Map.of()));
+        }
+
+        // Handlers arrive one every millisecond while the batch is running.
+        final long[] latencies = new long[handlers];
+        final List<ScheduledExecution> submitted = new ArrayList<>();
+        final long[] starts = new long[handlers];
+        for (var i = 0; i < handlers; i++) {
+            starts[i] = System.nanoTime();
+            final ScheduledExecution execution = scheduler.submit(handlerProgram, Map.of());
+            final int index = i;
+            execution.result().thenRun(() -> latencies[index] = System.nanoTime() - starts[index]);
+            submitted.add(execution);
+            Thread.sleep(1);
+        }
+
+        for (final ScheduledExecution execution : submitted) execution.result().join();
+        long busyCpu = 0;
+        for (final ScheduledExecution execution : batch) {
+            execution.result().join();
+            busyCpu += execution.getCpuNanos();
+        }
+        return new Run(latencies, busyCpu);
+    }
+
+    private static void report(String name, Run run) {
+        final long[] sorted = run.latencies().clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-14s %10.2f %10.2f %10.2f %10.2f %14.0f%n", name, percentile(sorted, 50),
+                percentile(sorted, 90), percentile(sorted, 99), sorted[sorted.length - 1] / 1e6,
+                run.busyCpuNanos() / 1e6);
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
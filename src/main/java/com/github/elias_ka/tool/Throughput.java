@@ -0,0 +1,94 @@
+package com.github.elias_ka.tool;
+
+import com.github.elias_ka.lox.Lox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// Runs the benchmark corpus on 1, 2, 4, ... threads, each run on its own Lox engine, and reports how script
+// throughput scales with the number of threads. That concurrent runs give the same results as sequential ones is
+// checked by ConcurrentExecutionTest; this tool only measures.
+public class Throughput {
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int seconds = 5;
+        String dir = null;
+
+        try {
+            for (var i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                    default -> dir = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            dir = null;
+        }
+
+        if (dir == null || threads < 1 || seconds < 1) {
+            System.err.println("Usage: throughput [--threads n] [--seconds n] <bench directory>");
+            System.exit(64);
+        }
+
+        final List<String> sources = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Paths.get(dir))) {
+            for (final Path script : files.filter(path -> path.toString().endsWith(".lox")).sorted().toList()) {
+                sources.add(Files.readString(script));
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(74);
+        }
+
+        // Warm up the JIT so the first thread count isn't penalized.
+        measure(sources, 1, Math.min(seconds, 2));
+
+        System.out.printf("%8s %12s %10s%n", "threads", "runs/s", "speedup");
+        double single = 0;
+        for (var n = 1; n <= threads; n = n < threads && n * 2 > threads ? threads : n * 2) {
+            final double throughput = measure(sources, n, seconds);
+            if (n == 1) single = throughput;
+            System.out.printf("%8d %12.1f %9.2fx%n", n, throughput, throughput / single);
+            if (n == threads) break;
+        }
+    }
+
+    private static double measure(List<String> sources, int threads, int seconds) throws Exception {
+        final PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        final PrintStream err = new PrintStream(OutputStream.nullOutputStream());
+        final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        final long start = System.nanoTime();
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            final List<Future<Long>> workers = new ArrayList<>();
+            for (var t = 0; t < threads; t++) {
+                final int offset = t;
+                workers.add(pool.submit(() -> {
+                    long runs = 0;
+                    while (System.nanoTime() < deadline) {
+                        new Lox(out, err).run(sources.get((int) ((runs + offset) % sources.size())));
+                        runs++;
+                    }
+                    return runs;
+                }));
+            }
+
+            long runs = 0;
+            for (final Future<Long> worker : workers) {
+                runs += worker.get();
+            }
+            return runs / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.elias_ka.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Engines share no mutable state, so scripts running at the same time must print exactly what they print alone.
+class ConcurrentExecutionTest {
+    private static final int THREADS = 8;
+    private static final int RUNS = 25;
+
+    private static final List<String> SCRIPTS = List.of(
+            """
+                    fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }
+                    print fib(18);
+                    """,
+            """
+                    var total = 0;
+                    for (var i = 0; i < 20000; i = i + 1) total = total + i;
+                    print total;
+                    """,
+            """
+                    class Point {
+                      init(x, y) { this.x = x; this.y = y; }
+                      sum() { return this.x + this.y; }
+                    }
+                    var acc = 0;
+                    for (var i = 0; i < 2000; i = i + 1) acc = acc + Point(i, 1).sum();
+                    print acc;
+                    """,
+            """
+                    fun counter() { var n = 0; fun next() { n = n + 1; return n; } return next; }
+                    var c = counter();
+                    for (var i = 0; i < 999; i = i + 1) c();
+                    var s = "";
+                    for (var i = 0; i < 100; i = i + 1) s = s + "ab";
+                    print c();
+                    print s == s + "";
+                    """);
+
+    @Test
+    void separateEnginesGiveTheSameOutputAsSequentialRuns() throws Exception {
+        final List<String> expected = SCRIPTS.stream().map(ConcurrentExecutionTest::runAlone).toList();
+
+        runConcurrently(index -> {
+            final String script = SCRIPTS.get(index % SCRIPTS.size());
+            return () -> assertEquals(expected.get(index % SCRIPTS.size()), runAlone(script));
+        });
+    }
+
+    @Test
+    void oneProgramExecutedOnManyEnginesKeepsBindingsApart() throws Exception {
+        final Program program = new Lox().compile("""
+                var total = 0;
+                for (var i = 0; i < 5000; i = i + 1) total = total + step;
+                print total;
+                """);
+
+        runConcurrently(index -> () -> {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final Lox lox = new Lox(new PrintStream(out, true, StandardCharsets.UTF_8), System.err);
+            assertEquals(true, lox.execute(program, Map.of("step", index)));
+            assertEquals(NumberFormatter.format(5000.0 * index) + System.lineSeparator(),
+                    out.toString(StandardCharsets.UTF_8));
+        });
+    }
+
+    @Test
+    void pooledExecutionEndsOnlyOnceItsTasksHave() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final InterpreterPool pool = new InterpreterPool(1, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        final Lox lox = new Lox();
+
+        assertFalse(pool.execute(lox.compile("""
+                var shared = "first";
+                fun late() {
+                  var i = 0;
+                  while (i < 100000) i = i + 1;
+                  print shared;
+                }
+                fun failing() { return nil + 1; }
+                spawn(late);
+                spawn(failing);
+                """), Map.of()));
+        assertTrue(pool.execute(lox.compile("print \"second\";"), Map.of()));
+
+        final String nl = System.lineSeparator();
+        assertEquals("first" + nl + "second" + nl, out.toString(StandardCharsets.UTF_8));
+        assertEquals("[line 7] Error: Operands must be two numbers or two strings. " + nl,
+                err.toString(StandardCharsets.UTF_8));
+    }
+
+    // A script hands out an instance it only reaches through an array, after a spawn has shared its globals. Threads
+    // then add fields to the instance at the same time, which loses fields unless the array shared its element too.
+    @Test
+    void instanceInASharedArrayTakesFieldsFromSeveralThreads() throws Exception {
+        final int fields = 20_000;
+        for (var round = 0; round < RUNS; round++) {
+            final List<Object> sink = new ArrayList<>();
+            final Lox lox = new Lox();
+            assertTrue(lox.execute(lox.compile("""
+                    class Box {}
+                    var boxes = [Box()];
+                    fun noop() {}
+                    spawn(noop);
+                    sink.add(boxes);
+                    """), Map.of("sink", sink)));
+            final LoxInstance box = (LoxInstance) ((LoxArray) sink.getFirst()).get(0);
+
+            final List<Thread> writers = new ArrayList<>();
+            for (final String prefix : List.of("a", "b")) {
+                writers.add(Thread.ofPlatform().start(() -> {
+                    for (var i = 0; i < fields; i++) {
+                        box.set(field(prefix + i), (double) i);
+                    }
+                }));
+            }
+            for (final Thread writer : writers) {
+                writer.join();
+            }
+            for (var i = 0; i < fields; i++) {
+                assertEquals((double) i, box.get(field("a" + i)), "round " + round);
+                assertEquals((double) i, box.get(field("b" + i)), "round " + round);
+            }
+        }
+    }
+
+    private static Token field(String name) {
+        return new Token(TokenType.IDENTIFIER, name, null, 1, Symbol.of(name));
+    }
+
+    private interface Check {
+        void run() throws Exception;
+    }
+
+    private static void runConcurrently(IntFunction<Check> checks) throws Exception {
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            final List<Future<Void>> results = new ArrayList<>();
+            for (var i = 0; i < THREADS * RUNS; i++) {
+                final Check check = checks.apply(i);
+                results.add(pool.submit((Callable<Void>) () -> {
+                    check.run();
+                    return null;
+                }));
+            }
+            for (final Future<Void> result : results) {
+                result.get();
+            }
+        }
+    }
+
+    private static String runAlone(String source) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final Lox lox = new Lox(new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        lox.run(source);
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.elias_ka.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ExecutionLimitsTest {
+    private static final ExecutionLimits TIMEOUT = ExecutionLimits.timeout(Duration.ofMillis(200));
+
+    @Test
+    void waitingOnAChannelStopsAtTheTimeout() {
+        assertStopped(TIMEOUT, "Channel().receive();", "Execution exceeded its time limit of 200 ms.");
+    }
+
+    @Test
+    void waitingForAMutexStopsAtTheTimeout() {
+        assertStopped(TIMEOUT, """
+                var mutex = Mutex();
+                var held = Channel();
+                fun holder() { mutex.lock(); held.send(true); Channel().receive(); }
+                spawn(holder);
+                held.receive();
+                mutex.lock();
+                """, "Execution exceeded its time limit of 200 ms.");
+    }
+
+    @Test
+    void awaitingATaskStopsAtTheTimeout() {
+        assertStopped(TIMEOUT, """
+                fun stuck() { Channel().receive(); }
+                await(spawn(stuck));
+                """, "Execution exceeded its time limit of 200 ms.");
+    }
+
+    @Test
+    void fillingAnArrayStopsAtTheMemoryLimit() {
+        assertStopped(ExecutionLimits.memory(1_000_000), """
+                var array = [];
+                while (true) array.push(1);
+                """, "Execution exceeded its memory limit of 1000000 bytes.");
+    }
+
+    @Test
+    void fillingAMapStopsAtTheMemoryLimit() {
+        assertStopped(ExecutionLimits.memory(1_000_000), """
+                var map = Map();
+                var i = 0;
+                while (true) {
+                  map[i] = i;
+                  i = i + 1;
+                }
+                """, "Execution exceeded its memory limit of 1000000 bytes.");
+    }
+
+    @Test
+    void mixedArrayLiteralStopsAtTheMemoryLimit() {
+        // Enough for the literal itself, but not for moving its elements to an Object[] when it meets the string.
+        final long limit = Interpreter.INSTANCE_BYTES + 16;
+        assertStopped(ExecutionLimits.memory(limit), "[1, \"a\"];",
+                "Execution exceeded its memory limit of %d bytes.".formatted(limit));
+    }
+
+    private static void assertStopped(ExecutionLimits limits, String source, String message) {
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final Lox lox = new Lox(new PrintStream(OutputStream.nullOutputStream()),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        final Program program = lox.compile(source);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertFalse(lox.execute(program, Map.of(), limits)));
+        final String reported = err.toString(StandardCharsets.UTF_8);
+        assertEquals(message, reported.substring(reported.indexOf("Error: ") + 7).strip(), reported);
+    }
+}
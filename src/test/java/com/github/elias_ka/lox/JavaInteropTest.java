@@ -0,0 +1,64 @@
+package com.github.elias_ka.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JavaInteropTest {
+    @Test
+    void getClassIsNotAProperty() {
+        assertFails(Map.of("list", List.of()), "list.getClass();", "Undefined property 'getClass'.");
+    }
+
+    @Test
+    void methodsWithReflectiveTypesAreLeftOut() {
+        assertFails(Map.of("Thread", Thread.class), "Thread.currentThread().getContextClassLoader();",
+                "Undefined property 'getContextClassLoader'.");
+    }
+
+    @Test
+    void reflectiveValuesAreNotWrapped() {
+        assertFails(Map.of("Integer", Integer.class), "Integer.TYPE;", "Scripts can't use a java.lang.Class.");
+        assertFails(Map.of("map", Map.of("type", String.class)), "map.get(\"type\");",
+                "Scripts can't use a java.lang.Class.");
+        assertThrows(IllegalArgumentException.class, () -> execute(Map.of("Class", Class.class), ""));
+        assertThrows(IllegalArgumentException.class, () -> execute(Map.of("loader", getClass().getClassLoader()), ""));
+    }
+
+    @Test
+    void cachedMethodsFollowTheReceiver() {
+        final StringBuilder a = new StringBuilder();
+        final StringBuilder b = new StringBuilder();
+        assertEquals("", execute(Map.of("a", a, "b", b, "list", new ArrayList<>()), """
+                fun add(target, text) { target.add(text); }
+                fun append(target, text) { target.append(text); }
+                for (var i = 0; i < 3; i = i + 1) { append(a, "a"); append(b, "b"); }
+                add(list, "c");
+                print list.size();
+                """));
+        assertEquals("aaa", a.toString());
+        assertEquals("bbb", b.toString());
+    }
+
+    private static void assertFails(Map<String, Object> bindings, String source, String message) {
+        final String reported = execute(bindings, source);
+        assertEquals(message, reported.substring(reported.indexOf("Error: ") + 7).strip(), reported);
+    }
+
+    private static String execute(Map<String, Object> bindings, String source) {
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final Lox lox = new Lox(new PrintStream(OutputStream.nullOutputStream()),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        lox.execute(lox.compile(source), bindings);
+        return err.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.elias_ka.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoxChannelTest {
+    private static final int ROUNDS = 2000;
+
+    // A select woken by two channels at once uses only one of the wakeups, so it has to pass the other on, or a
+    // receiver parked on the second channel never sees the value waiting there.
+    @Test
+    void selectPassesOnWakeupsItDidNotUse() throws Exception {
+        for (var round = 0; round < ROUNDS; round++) {
+            final LoxChannel a = LoxChannel.unbounded();
+            final LoxChannel b = LoxChannel.unbounded();
+            final AtomicInteger received = new AtomicInteger();
+            final CountDownLatch two = new CountDownLatch(2);
+            final CountDownLatch three = new CountDownLatch(3);
+            final Runnable count = () -> {
+                received.incrementAndGet();
+                two.countDown();
+                three.countDown();
+            };
+
+            final List<Thread> threads = new ArrayList<>();
+            for (var i = 0; i < 2; i++) {
+                threads.add(Thread.ofVirtual().start(() -> {
+                    LoxChannel.select(List.of(a, b), 0);
+                    count.run();
+                }));
+            }
+            threads.add(Thread.ofVirtual().start(() -> {
+                b.receive(0);
+                count.run();
+            }));
+            for (final Thread thread : threads) {
+                while (thread.getState() != Thread.State.WAITING) Thread.onSpinWait();
+            }
+
+            b.send(1.0, 0);
+            a.send(2.0, 0);
+            assertTrue(two.await(5, TimeUnit.SECONDS), "a value was left unreceived in round " + round);
+
+            b.send(3.0, 0);
+            assertTrue(three.await(5, TimeUnit.SECONDS), "a receiver was not woken in round " + round);
+            assertEquals(3, received.get());
+        }
+    }
+}
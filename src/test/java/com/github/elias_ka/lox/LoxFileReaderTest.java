@@ -0,0 +1,48 @@
+package com.github.elias_ka.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoxFileReaderTest {
+    @Test
+    void hasNextDoesNotReadAheadOfRead() {
+        final LoxFileReader reader = reader("ab\r\ncd\nef");
+
+        assertTrue(reader.hasNext());
+        assertEquals("a", reader.read(1));
+        assertTrue(reader.hasNext());
+        assertEquals("b\r", reader.read(2));
+        assertTrue(reader.hasNext());
+        assertEquals("\n", reader.read(1));
+        assertTrue(reader.hasNext());
+        assertEquals("cd", reader.next());
+        assertTrue(reader.hasNext());
+        assertEquals("ef", reader.read(10));
+        assertFalse(reader.hasNext());
+        assertNull(reader.read(1));
+    }
+
+    @Test
+    void linesEndWithTheLastTerminator() {
+        final LoxFileReader reader = reader("one\n\ntwo\n");
+
+        assertEquals("one", reader.next());
+        assertTrue(reader.hasNext());
+        assertEquals("", reader.next());
+        assertTrue(reader.hasNext());
+        assertEquals("two", reader.next());
+        assertFalse(reader.hasNext());
+    }
+
+    private static LoxFileReader reader(String text) {
+        return new LoxFileReader(Path.of("test.txt"), new BufferedReader(new StringReader(text)), new OpenFiles());
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.elias_ka.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrintTest {
+    @Test
+    void arrayContainingItselfPrintsAPlaceholder() {
+        assertPrints("""
+                var a = [1];
+                a.push(a);
+                print a;
+                print [a, a];
+                """, "[1, [...]]\n[[1, [...]], [1, [...]]]\n");
+    }
+
+    @Test
+    void mapContainingItselfPrintsAPlaceholder() {
+        assertPrints("""
+                var m = Map();
+                m["self"] = m;
+                m["list"] = [m];
+                print m;
+                """, "{self: {...}, list: [{...}]}\n");
+    }
+
+    private static void assertPrints(String source, String expected) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final Lox lox = new Lox(new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        lox.execute(lox.compile(source), Map.of());
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+}
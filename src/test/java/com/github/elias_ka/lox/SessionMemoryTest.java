@@ -0,0 +1,75 @@
+package com.github.elias_ka.lox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Feeds a long stream of REPL-style lines to one engine. Every line declares a function and a class over a bounded set
+// of global names, so once the first lines have warmed up the live heap should stay flat; an engine that kept the AST
+// of finished lines alive grows by kilobytes per line.
+class SessionMemoryTest {
+    private static final int NAMES = 100;
+    private static final int WARMUP_LINES = 10_000;
+    private static final int LINES = 100_000;
+    private static final long MAX_GROWTH_BYTES = 8L * 1024 * 1024;
+    private static final int PROGRAMS = 20_000;
+
+    @Test
+    void finishedLinesDoNotStayReachable() throws Exception {
+        final Lox lox = new Lox(new PrintStream(OutputStream.nullOutputStream()), System.err);
+        run(lox, 0, WARMUP_LINES);
+        final long before = liveHeap();
+
+        run(lox, WARMUP_LINES, LINES);
+        final long growth = liveHeap() - before;
+
+        assertTrue(growth < MAX_GROWTH_BYTES,
+                "live heap grew by %d KB over %d lines".formatted(growth / 1024, LINES - WARMUP_LINES));
+    }
+
+    // Each program reads a global no other program uses. The names of finished programs are collected, and their slots
+    // handed out again, so the slots, and the cell arrays sized by them, stay small.
+    @Test
+    void globalSlotsOfFinishedProgramsAreReused() throws Exception {
+        final Lox lox = new Lox(new PrintStream(OutputStream.nullOutputStream()), System.err);
+        for (var i = 0; i < PROGRAMS; i++) {
+            assertTrue(lox.execute(lox.compile("var unique%d = %d; print unique%d;".formatted(i, i, i)), Map.of()));
+            if (i % 1000 == 999) liveHeap();
+        }
+        liveHeap();
+
+        final int slot = Symbol.of("unique" + PROGRAMS).globalSlot();
+        assertTrue(slot < PROGRAMS / 10, "slot %d handed out after %d programs".formatted(slot, PROGRAMS));
+    }
+
+    private static void run(Lox lox, int from, int to) {
+        for (var i = from; i < to; i++) {
+            final int n = i % NAMES;
+            lox.run("""
+                    fun f%d(x) { var y = x * 2; return y + %d; }
+                    class C%d { init(v) { this.v = v; } get() { return this.v; } }
+                    var r%d = C%d(f%d(%d)).get();
+                    """.formatted(n, i, n, n, n, n, i));
+            assertFalse(lox.hadError() || lox.hadRuntimeError(), "line " + i + " failed");
+        }
+    }
+
+    // The smallest of a few readings, each after a full collection, to keep garbage that's still being freed out of it.
+    private static long liveHeap() throws InterruptedException {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long least = Long.MAX_VALUE;
+        for (var i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+            least = Math.min(least, memory.getHeapMemoryUsage().getUsed());
+        }
+        return least;
+    }
+}